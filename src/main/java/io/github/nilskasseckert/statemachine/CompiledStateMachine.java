@@ -0,0 +1,587 @@
+package io.github.nilskasseckert.statemachine;
+
+import io.github.nilskasseckert.statemachine.entity.*;
+import lombok.val;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * Index based representation of a {@link StateMachineConfig}.
+ * <p>
+ * Every state and every action gets a dense index. Transitions are resolved per state index with inheritance from
+ * enclosing states already applied, actions are resolved through a (state, action) dispatch table that holds both the
+ * permission and the action transition, and the bit masks needed to exit and enter states of a
+ * {@link StateConfiguration} are precomputed, so lookups never scan the state list.
+ * <p>
+ * States referenced only by transitions are added as implicit top-level states, which keeps flat definitions
+ * working unchanged.
+ */
+final class CompiledStateMachine {
+
+    static final int NO_PARENT = -1;
+
+    private final String[] stateNames;
+    private final Map<String, Integer> stateIndex;
+    private final int[] parents;
+    private final int[] regions;
+    private final boolean[] initials;
+    private final List<List<AbstractTransitionEntity>> ownTransitions;
+    private final List<List<String>> ownActions;
+    private final EvaluationBudgetEntity evaluationBudget;
+    private final int wordCount;
+    private final long[] stateFingerprints;
+
+    private final int[][] regionInitials;
+    private final long[][] subtreeMasks;
+    private final long[][] regionSiblingMasks;
+
+    private final List<List<AbstractTransitionEntity>> transitions;
+
+    private final Map<String, Integer> actionIndex;
+    private final int actionCount;
+    private final ActionDispatch[] dispatchTable;
+
+    /**
+     * @param stateNames     state names, indexed by state
+     * @param parents        index of the enclosing state or {@link #NO_PARENT}
+     * @param regions        index of the region within the parent, numbered from 0 per parent
+     * @param initials       whether the state is the initial state of its region
+     * @param ownTransitions transitions declared on the state itself, in definition order
+     * @param ownActions     allowed actions declared on the state itself
+     * @param evaluationBudget latency budget for conditions, or {@code null}
+     */
+    CompiledStateMachine(
+            String[] stateNames,
+            int[] parents,
+            int[] regions,
+            boolean[] initials,
+            List<List<AbstractTransitionEntity>> ownTransitions,
+            List<List<String>> ownActions,
+            EvaluationBudgetEntity evaluationBudget
+    ) {
+        val stateCount = stateNames.length;
+
+        this.stateNames = stateNames;
+        this.parents = parents;
+        this.regions = regions;
+        this.initials = initials;
+        this.ownTransitions = ownTransitions;
+        this.ownActions = ownActions;
+        this.evaluationBudget = evaluationBudget;
+        this.wordCount = (stateCount + 63) >>> 6;
+        this.stateFingerprints = computeStateFingerprints(stateNames);
+
+        stateIndex = new HashMap<>(stateCount * 2);
+        for (int i = 0; i < stateCount; i++) {
+            stateIndex.put(stateNames[i], i);
+        }
+
+        val order = topDownOrder(stateNames, parents);
+
+        regionInitials = computeRegionInitials(stateNames, parents, regions, initials);
+        subtreeMasks = computeSubtreeMasks(parents, wordCount);
+        regionSiblingMasks = computeRegionSiblingMasks(parents, regions, subtreeMasks, wordCount);
+
+        actionIndex = new HashMap<>();
+        for (int state = 0; state < stateCount; state++) {
+            for (val action : ownActions.get(state)) {
+                actionIndex.putIfAbsent(action, actionIndex.size());
+            }
+            for (val transition : ownTransitions.get(state)) {
+                if (transition instanceof ActionTransitionEntity actionTransition) {
+                    actionIndex.putIfAbsent(actionTransition.getAction(), actionIndex.size());
+                }
+            }
+        }
+
+        actionCount = actionIndex.size();
+        dispatchTable = new ActionDispatch[stateCount * actionCount];
+        transitions = new ArrayList<>(Collections.nCopies(stateCount, null));
+
+        for (int state : order) {
+            val parent = parents[state];
+            val row = state * actionCount;
+
+            List<AbstractTransitionEntity> effectiveTransitions = new ArrayList<>();
+            Set<String> ownActionTransitions = new HashSet<>();
+
+            if (parent != NO_PARENT) {
+                System.arraycopy(dispatchTable, parent * actionCount, dispatchTable, row, actionCount);
+            }
+
+            for (val action : ownActions.get(state)) {
+                val column = row + actionIndex.get(action);
+                if (dispatchTable[column] == null) {
+                    dispatchTable[column] = ActionDispatch.ALLOWED;
+                }
+            }
+
+            for (val transition : ownTransitions.get(state)) {
+                if (!(transition instanceof ActionTransitionEntity actionTransition)) {
+                    effectiveTransitions.add(transition);
+                } else if (ownActionTransitions.add(actionTransition.getAction())) {
+                    dispatchTable[row + actionIndex.get(actionTransition.getAction())] = new ActionDispatch(actionTransition);
+                } else {
+                    throw new IllegalArgumentException(String.format(
+                            "StateMachine: Duplicate transition for action '%s' in state '%s'.",
+                            actionTransition.getAction(), stateNames[state]));
+                }
+            }
+
+            if (parent != NO_PARENT) {
+                effectiveTransitions.addAll(transitions.get(parent));
+            }
+
+            transitions.set(state, List.copyOf(effectiveTransitions));
+        }
+    }
+
+    static CompiledStateMachine compile(StateMachineConfig config) {
+        List<StateEntity> states = new ArrayList<>(config.getStates());
+        Map<String, Integer> index = new LinkedHashMap<>();
+
+        for (val state : states) {
+            if (index.putIfAbsent(state.getState(), index.size()) != null) {
+                throw new IllegalArgumentException(String.format(
+                        "StateMachine: Duplicate state '%s' in definition.", state.getState()));
+            }
+        }
+
+        for (val transition : config.getTransitions()) {
+            for (val name : referencedStates(transition)) {
+                if (name != null && index.putIfAbsent(name, index.size()) == null) {
+                    states.add(new StateEntity(name, List.of()));
+                }
+            }
+        }
+
+        val stateCount = states.size();
+        val stateNames = new String[stateCount];
+        val parents = new int[stateCount];
+        val regions = new int[stateCount];
+        val initials = new boolean[stateCount];
+        List<List<AbstractTransitionEntity>> ownTransitions = new ArrayList<>(stateCount);
+        List<List<String>> ownActions = new ArrayList<>(stateCount);
+        Map<Integer, List<String>> regionNamesByParent = new HashMap<>();
+
+        for (int i = 0; i < stateCount; i++) {
+            val state = states.get(i);
+
+            stateNames[i] = state.getState();
+            parents[i] = resolveParent(index, state);
+
+            if (parents[i] == NO_PARENT && state.getRegion() != null) {
+                throw new IllegalArgumentException(String.format(
+                        "StateMachine: State '%s' declares region '%s' but has no parent.",
+                        state.getState(), state.getRegion()));
+            }
+
+            initials[i] = Boolean.TRUE.equals(state.getInitial());
+            ownTransitions.add(new ArrayList<>());
+            ownActions.add(state.getAllowedActions() != null ? state.getAllowedActions() : List.of());
+
+            val regionNames = regionNamesByParent.computeIfAbsent(parents[i], key -> new ArrayList<>());
+            val regionName = Objects.requireNonNullElse(state.getRegion(), "");
+
+            if (!regionNames.contains(regionName)) {
+                regionNames.add(regionName);
+            }
+            regions[i] = regionNames.indexOf(regionName);
+        }
+
+        for (val transition : config.getTransitions()) {
+            if (transition instanceof ActionTransitionEntity action) {
+                validateActionTransition(action);
+            }
+
+            ownTransitions.get(index.get(transition.getFrom())).add(transition);
+        }
+
+        return new CompiledStateMachine(stateNames, parents, regions, initials, ownTransitions, ownActions,
+                config.getEvaluationBudget());
+    }
+
+    int stateCount() {
+        return stateNames.length;
+    }
+
+    int indexOf(String state) {
+        val index = stateIndex.get(state);
+        return index != null ? index : -1;
+    }
+
+    String stateName(int index) {
+        return stateNames[index];
+    }
+
+    int parentOf(int index) {
+        return parents[index];
+    }
+
+    int regionOf(int index) {
+        return regions[index];
+    }
+
+    boolean isInitial(int index) {
+        return initials[index];
+    }
+
+    List<AbstractTransitionEntity> ownTransitionsOf(int index) {
+        return ownTransitions.get(index);
+    }
+
+    List<String> ownActionsOf(int index) {
+        return ownActions.get(index);
+    }
+
+    EvaluationBudgetEntity evaluationBudget() {
+        return evaluationBudget;
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the ordered state names, which define the bit positions of a {@link StateConfiguration}.
+     */
+    long stateFingerprint() {
+        return stateFingerprints[stateNames.length];
+    }
+
+    /**
+     * Returns whether a configuration persisted with the given fingerprint has the same bit positions in this
+     * machine. This is the case if the fingerprint matches the states of this machine up to the highest active
+     * state or any later one, so configurations stay valid when states are appended to the definition.
+     */
+    boolean isCompatible(StateConfiguration configuration, long fingerprint) {
+        val words = configuration.wordCount();
+        val minimumCount = words == 0
+                ? 0
+                : (words << 6) - Long.numberOfLeadingZeros(configuration.word(words - 1));
+
+        for (int count = minimumCount; count <= stateNames.length; count++) {
+            if (stateFingerprints[count] == fingerprint) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Transitions of the state followed by the transitions inherited from its enclosing states, or {@code null}
+     * for unknown states.
+     */
+    List<AbstractTransitionEntity> transitionsOf(String state) {
+        val index = indexOf(state);
+        return index >= 0 ? transitions.get(index) : null;
+    }
+
+    /**
+     * Looks up the dispatch table entry of the action in the state, or {@code null} if the action is not allowed.
+     */
+    ActionDispatch dispatch(String state, String action) {
+        val stateIdx = indexOf(state);
+        val actionIdx = actionIndex.get(action);
+
+        if (stateIdx < 0 || actionIdx == null) {
+            return null;
+        }
+
+        return dispatchTable[stateIdx * actionCount + actionIdx];
+    }
+
+    boolean isActionAllowed(String state, String action) {
+        return dispatch(state, action) != null;
+    }
+
+    boolean isActionAllowed(StateConfiguration configuration, String action) {
+        val actionIdx = actionIndex.get(action);
+
+        if (actionIdx == null) {
+            return false;
+        }
+
+        for (int word = 0; word < configuration.wordCount(); word++) {
+            long mask = configuration.word(word);
+
+            while (mask != 0) {
+                val state = (word << 6) + Long.numberOfTrailingZeros(mask);
+
+                if (state < stateNames.length && dispatchTable[state * actionCount + actionIdx] != null) {
+                    return true;
+                }
+                mask &= mask - 1;
+            }
+        }
+
+        return false;
+    }
+
+    List<String> activeStates(StateConfiguration configuration) {
+        List<String> active = new ArrayList<>();
+
+        for (int word = 0; word < configuration.wordCount(); word++) {
+            long mask = configuration.word(word);
+
+            while (mask != 0) {
+                val state = (word << 6) + Long.numberOfTrailingZeros(mask);
+
+                if (state < stateNames.length) {
+                    active.add(stateNames[state]);
+                }
+                mask &= mask - 1;
+            }
+        }
+
+        return active;
+    }
+
+    /**
+     * Enters the target state: whatever is active in the target's region (and in the regions of its enclosing
+     * states) is exited, the target and its ancestors are activated, and the initial states of all regions that
+     * become active are entered. Orthogonal regions not on the path to the target are left untouched.
+     */
+    StateConfiguration enter(StateConfiguration configuration, int target) {
+        val words = configuration.toLongArray(wordCount);
+
+        clear(words, subtreeMasks[target]);
+        clear(words, regionSiblingMasks[target]);
+        set(words, target);
+        enterInitials(words, target);
+
+        for (int child = target, state = parents[target]; state != NO_PARENT; child = state, state = parents[state]) {
+            if (isSet(words, state)) {
+                break;
+            }
+
+            clear(words, regionSiblingMasks[state]);
+            set(words, state);
+
+            val initials = regionInitials[state];
+            for (int region = 0; region < initials.length; region++) {
+                if (region != regions[child]) {
+                    set(words, initials[region]);
+                    enterInitials(words, initials[region]);
+                }
+            }
+        }
+
+        return StateConfiguration.ofLongArray(words);
+    }
+
+    // helper
+    private void enterInitials(long[] words, int state) {
+        for (int initial : regionInitials[state]) {
+            set(words, initial);
+            enterInitials(words, initial);
+        }
+    }
+
+    private static List<String> referencedStates(AbstractTransitionEntity transition) {
+        List<String> referenced = new ArrayList<>();
+        referenced.add(transition.getFrom());
+
+        if (transition instanceof SuccessTransitionEntity success) {
+            referenced.add(success.getTo());
+        }
+
+        if (transition instanceof ErrorTransitionEntity error) {
+            referenced.add(error.getTo());
+        }
+
+        if (transition instanceof ConditionalTransitionEntity conditional && conditional.getConditions() != null) {
+            conditional.getConditions().forEach(condition -> referenced.add(condition.getTo()));
+        }
+
+        if (transition instanceof ActionTransitionEntity action) {
+            referenced.add(action.getTo());
+
+            if (action.getConditions() != null) {
+                action.getConditions().forEach(condition -> referenced.add(condition.getTo()));
+            }
+        }
+
+        return referenced;
+    }
+
+    private static void validateActionTransition(ActionTransitionEntity transition) {
+        if (transition.getTo() != null && transition.getConditions() != null) {
+            throw new IllegalArgumentException(String.format(
+                    "StateMachine: Action '%s' in state '%s' declares both 'to' and 'conditions'.",
+                    transition.getAction(), transition.getFrom()));
+        }
+
+        if (transition.getTo() == null && (transition.getConditions() == null || transition.getConditions().isEmpty())) {
+            throw new IllegalArgumentException(String.format(
+                    "StateMachine: Action '%s' in state '%s' declares neither 'to' nor 'conditions'.",
+                    transition.getAction(), transition.getFrom()));
+        }
+    }
+
+    private static int resolveParent(Map<String, Integer> index, StateEntity state) {
+        if (state.getParent() == null) {
+            return NO_PARENT;
+        }
+
+        val parent = index.get(state.getParent());
+
+        if (parent == null) {
+            throw new IllegalArgumentException(String.format(
+                    "StateMachine: Unknown parent state '%s' of state '%s'.", state.getParent(), state.getState()));
+        }
+
+        return parent;
+    }
+
+    /**
+     * Orders states so that every parent comes before its children, failing on cyclic parent references.
+     */
+    private static long[] computeStateFingerprints(String[] stateNames) {
+        val fingerprints = new long[stateNames.length + 1];
+        long hash = 0xcbf29ce484222325L;
+        fingerprints[0] = hash;
+
+        for (int state = 0; state < stateNames.length; state++) {
+            val name = stateNames[state];
+            hash = (hash ^ name.length()) * 0x100000001b3L;
+
+            for (int i = 0; i < name.length(); i++) {
+                hash = (hash ^ name.charAt(i)) * 0x100000001b3L;
+            }
+
+            fingerprints[state + 1] = hash;
+        }
+
+        return fingerprints;
+    }
+
+    private static int[] topDownOrder(String[] stateNames, int[] parents) {
+        val depths = new int[parents.length];
+
+        for (int state = 0; state < parents.length; state++) {
+            int depth = 0;
+
+            for (int current = parents[state]; current != NO_PARENT; current = parents[current]) {
+                if (++depth > parents.length) {
+                    throw new IllegalArgumentException(String.format(
+                            "StateMachine: Cyclic parent reference involving state '%s'.", stateNames[state]));
+                }
+            }
+
+            depths[state] = depth;
+        }
+
+        return IntStream.range(0, parents.length)
+                .boxed()
+                .sorted(Comparator.comparingInt(state -> depths[state]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    private static int[][] computeRegionInitials(String[] stateNames, int[] parents, int[] regions, boolean[] initials) {
+        List<List<Integer>> initialsByParent = new ArrayList<>();
+        for (int i = 0; i < parents.length; i++) {
+            initialsByParent.add(new ArrayList<>());
+        }
+
+        for (int state = 0; state < parents.length; state++) {
+            val parent = parents[state];
+            if (parent == NO_PARENT) {
+                continue;
+            }
+
+            val regionInitials = initialsByParent.get(parent);
+            while (regionInitials.size() <= regions[state]) {
+                regionInitials.add(null);
+            }
+
+            val current = regionInitials.get(regions[state]);
+            if (current == null) {
+                regionInitials.set(regions[state], state);
+            } else if (initials[state]) {
+                if (initials[current]) {
+                    throw new IllegalArgumentException(String.format(
+                            "StateMachine: States '%s' and '%s' are both initial states of the same region.",
+                            stateNames[current], stateNames[state]));
+                }
+                regionInitials.set(regions[state], state);
+            }
+        }
+
+        val result = new int[parents.length][];
+        for (int state = 0; state < parents.length; state++) {
+            result[state] = initialsByParent.get(state).stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        return result;
+    }
+
+    private static long[][] computeSubtreeMasks(int[] parents, int wordCount) {
+        val masks = new long[parents.length][wordCount];
+
+        for (int state = 0; state < parents.length; state++) {
+            for (int current = state; current != NO_PARENT; current = parents[current]) {
+                set(masks[current], state);
+            }
+        }
+
+        return masks;
+    }
+
+    private static long[][] computeRegionSiblingMasks(int[] parents, int[] regions, long[][] subtreeMasks, int wordCount) {
+        Map<Long, long[]> regionMasks = new HashMap<>();
+
+        for (int state = 0; state < parents.length; state++) {
+            or(regionMasks.computeIfAbsent(regionKey(parents[state], regions[state]), key -> new long[wordCount]),
+                    subtreeMasks[state]);
+        }
+
+        val masks = new long[parents.length][];
+        for (int state = 0; state < parents.length; state++) {
+            masks[state] = regionMasks.get(regionKey(parents[state], regions[state])).clone();
+            clear(masks[state], subtreeMasks[state]);
+        }
+
+        return masks;
+    }
+
+    private static long regionKey(int parent, int region) {
+        return ((long) parent << 32) | region;
+    }
+
+    private static boolean isSet(long[] words, int index) {
+        return (words[index >>> 6] & (1L << index)) != 0;
+    }
+
+    private static void set(long[] words, int index) {
+        words[index >>> 6] |= 1L << index;
+    }
+
+    private static void clear(long[] words, long[] mask) {
+        for (int i = 0; i < mask.length; i++) {
+            words[i] &= ~mask[i];
+        }
+    }
+
+    private static void or(long[] words, long[] mask) {
+        for (int i = 0; i < mask.length; i++) {
+            words[i] |= mask[i];
+        }
+    }
+
+    /**
+     * Entry of the dispatch table. An entry without transition only allows the action; firing it throws
+     * {@link io.github.nilskasseckert.statemachine.exception.StateMachineInvalidStateException}.
+     */
+    record ActionDispatch(ActionTransitionEntity transition) {
+        static final ActionDispatch ALLOWED = new ActionDispatch(null);
+    }
+}
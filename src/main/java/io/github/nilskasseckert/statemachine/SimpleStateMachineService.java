@@ -1,46 +1,75 @@
 package io.github.nilskasseckert.statemachine;
 
 import io.github.nilskasseckert.statemachine.annotation.StateMachineService;
+import io.github.nilskasseckert.statemachine.control.ConditionCircuitBreaker;
+import io.github.nilskasseckert.statemachine.control.ConditionEvaluationBudget;
 import io.github.nilskasseckert.statemachine.control.EvaluateStateTransitionForNextStateComponent;
 import io.github.nilskasseckert.statemachine.entity.*;
 import io.github.nilskasseckert.statemachine.event.StateMachineIllegalActionEvent;
 import io.github.nilskasseckert.statemachine.event.StateMachineInvalidStateEvent;
 import io.github.nilskasseckert.statemachine.exception.StateMachineIllegalActionException;
 import io.github.nilskasseckert.statemachine.exception.StateMachineInvalidStateException;
+import io.github.nilskasseckert.statemachine.jfr.ActionRejectedJfrEvent;
+import io.github.nilskasseckert.statemachine.jfr.TransitionJfrEvent;
 import lombok.val;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationEventPublisher;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 @StateMachineService
 public class SimpleStateMachineService {
 
-    private final Map<String, List<AbstractTransitionEntity>> stateTransitions;
-    private final Map<String, StateEntity> stateEntityMap;
+    /**
+     * Name of a state machine that is not created by the factory, used in recorded events.
+     */
+    public static final String DEFAULT_NAME = "default";
+
+    private final String name;
+    private final CompiledStateMachine stateMachine;
+    private final ConditionEvaluationBudget evaluationBudget;
 
     private final ApplicationEventPublisher eventPublisher;
     private final EvaluateStateTransitionForNextStateComponent evaluateStateTransitionForNextState;
 
+    @Autowired
     public SimpleStateMachineService(
             StateMachineConfig stateMachineConfig,
             ApplicationEventPublisher eventPublisher,
             EvaluateStateTransitionForNextStateComponent evaluateStateTransitionForNextState
     ) {
+        this(DEFAULT_NAME, stateMachineConfig, eventPublisher, evaluateStateTransitionForNextState);
+    }
+
+    public SimpleStateMachineService(
+            String name,
+            StateMachineConfig stateMachineConfig,
+            ApplicationEventPublisher eventPublisher,
+            EvaluateStateTransitionForNextStateComponent evaluateStateTransitionForNextState
+    ) {
+        this(name, CompiledStateMachine.compile(stateMachineConfig), eventPublisher, evaluateStateTransitionForNextState);
+    }
+
+    SimpleStateMachineService(
+            String name,
+            CompiledStateMachine stateMachine,
+            ApplicationEventPublisher eventPublisher,
+            EvaluateStateTransitionForNextStateComponent evaluateStateTransitionForNextState
+    ) {
+        this.name = name;
+        this.stateMachine = stateMachine;
         this.eventPublisher = eventPublisher;
         this.evaluateStateTransitionForNextState = evaluateStateTransitionForNextState;
 
-        stateTransitions = stateMachineConfig.getTransitions().stream().collect(
-                Collectors.groupingBy(AbstractTransitionEntity::getFrom));
-
-        stateEntityMap = stateMachineConfig.getStates().stream().collect(
-                Collectors.toMap(StateEntity::getState, e -> e));
+        evaluationBudget = createEvaluationBudget(stateMachine);
     }
 
     public void requireActionAllowed(String currentState, String action) {
         if (!isActionAllowedForState(currentState, action)) {
+            recordActionRejected(currentState, action);
             eventPublisher.publishEvent(new StateMachineIllegalActionEvent(currentState, action));
 
             throw new StateMachineIllegalActionException(String.format(
@@ -49,14 +78,26 @@ public class SimpleStateMachineService {
         }
     }
 
-    public boolean isActionAllowedForState(String state, String action) {
-        val stateEntry = stateEntityMap.get(state);
+    public void requireActionAllowed(StateConfiguration configuration, String action) {
+        if (!isActionAllowedForConfiguration(configuration, action)) {
+            val activeStates = activeStates(configuration);
+            val activeStateList = String.join(",", activeStates);
 
-        if (stateEntry == null) {
-            return false;
+            recordActionRejected(activeStateList, action);
+            eventPublisher.publishEvent(new StateMachineIllegalActionEvent(activeStateList, action));
+
+            throw new StateMachineIllegalActionException(String.format(
+                    "StateMachine: Action '%s' is not allowed in any of the active states %s.",
+                    action, activeStates));
         }
+    }
 
-        return stateEntry.getAllowedActions().contains(action);
+    public boolean isActionAllowedForState(String state, String action) {
+        return stateMachine.isActionAllowed(state, action);
+    }
+
+    public boolean isActionAllowedForConfiguration(StateConfiguration configuration, String action) {
+        return stateMachine.isActionAllowed(configuration, action);
     }
 
     public void requireState(String currentState, String expectedState) {
@@ -108,11 +149,208 @@ public class SimpleStateMachineService {
         return nextState(currentState, false, variables);
     }
 
+    public String fire(String currentState, String action) {
+        return fire(currentState, action, Map.of());
+    }
+
+    public String fire(String currentState, String action, Map<String, Object> variables) {
+        val event = new TransitionJfrEvent();
+        val recording = event.isEnabled();
+
+        if (recording) {
+            event.begin();
+        }
+
+        String nextState = null;
+        Throwable failure = null;
+
+        try {
+            nextState = fireAction(currentState, action, variables);
+            return nextState;
+        } catch (Throwable e) {
+            failure = e;
+            throw e;
+        } finally {
+            if (recording) {
+                event.complete(name, currentState, action, nextState, failure);
+            }
+        }
+    }
+
+    public StateConfiguration initialConfiguration(String state) {
+        return stateMachine.enter(StateConfiguration.ofLongArray(new long[0]), requireStateIndex(state));
+    }
+
+    public StateConfiguration nextConfigurationForSuccess(StateConfiguration configuration, String activeState) {
+        return nextConfiguration(configuration, activeState, true, Map.of());
+    }
+
+    public StateConfiguration nextConfigurationForSuccess(StateConfiguration configuration, String activeState,
+                                                          Map<String, Object> variables) {
+        return nextConfiguration(configuration, activeState, true, variables);
+    }
+
+    public StateConfiguration nextConfigurationForError(StateConfiguration configuration, String activeState) {
+        return nextConfiguration(configuration, activeState, false, Map.of());
+    }
+
+    public StateConfiguration nextConfigurationForError(StateConfiguration configuration, String activeState,
+                                                        Map<String, Object> variables) {
+        return nextConfiguration(configuration, activeState, false, variables);
+    }
+
+    /**
+     * Restores a configuration persisted with {@link StateConfiguration#toLongArray()} together with the
+     * {@link #getStateFingerprint() state fingerprint} of the machine that created it.
+     *
+     * @throws StateMachineInvalidStateException if states were reordered, inserted or removed in the meantime
+     */
+    public StateConfiguration restoreConfiguration(long[] words, long stateFingerprint) {
+        val configuration = StateConfiguration.ofLongArray(words);
+
+        if (!stateMachine.isCompatible(configuration, stateFingerprint)) {
+            throw new StateMachineInvalidStateException(String.format(
+                    "StateMachine: Configuration %s was persisted with state fingerprint %016x, which does not match "
+                            + "the states of '%s'.", configuration, stateFingerprint, name));
+        }
+
+        return configuration;
+    }
+
+    public StateConfiguration restoreConfiguration(long word, long stateFingerprint) {
+        return restoreConfiguration(new long[]{word}, stateFingerprint);
+    }
+
+    public boolean isActive(StateConfiguration configuration, String state) {
+        val index = stateMachine.indexOf(state);
+        return index >= 0 && configuration.contains(index);
+    }
+
+    public List<String> activeStates(StateConfiguration configuration) {
+        return stateMachine.activeStates(configuration);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Fingerprint of the ordered state names, to be persisted along with configurations and passed to
+     * {@link #restoreConfiguration(long[], long)}.
+     */
+    public long getStateFingerprint() {
+        return stateMachine.stateFingerprint();
+    }
+
+    /**
+     * Circuit breakers of all conditions, empty if the definition has no evaluation budget.
+     */
+    public List<ConditionCircuitBreaker> getConditionCircuitBreakers() {
+        return evaluationBudget != null ? evaluationBudget.getCircuitBreakers() : List.of();
+    }
+
     // helper
+    private static ConditionEvaluationBudget createEvaluationBudget(CompiledStateMachine stateMachine) {
+        if (stateMachine.evaluationBudget() == null) {
+            return null;
+        }
+
+        List<AbstractTransitionEntity> transitions = new ArrayList<>();
+        for (int state = 0; state < stateMachine.stateCount(); state++) {
+            transitions.addAll(stateMachine.ownTransitionsOf(state));
+        }
+
+        return new ConditionEvaluationBudget(stateMachine.evaluationBudget(), transitions);
+    }
+
+    private StateConfiguration nextConfiguration(StateConfiguration configuration, String activeState,
+                                                 boolean completedSuccessfully, Map<String, Object> variables) {
+        if (!isActive(configuration, activeState)) {
+            throw new StateMachineInvalidStateException(String.format(
+                    "StateMachine: State '%s' is not active in configuration %s.",
+                    activeState, activeStates(configuration)));
+        }
+
+        val nextState = nextState(activeState, completedSuccessfully, variables);
+        return stateMachine.enter(configuration, requireStateIndex(nextState));
+    }
+
+    private int requireStateIndex(String state) {
+        val index = stateMachine.indexOf(state);
+
+        if (index < 0) {
+            throw new StateMachineInvalidStateException(String.format(
+                    "StateMachine: Unknown state '%s'.", state));
+        }
+
+        return index;
+    }
+
+    private String fireAction(String currentState, String action, Map<String, Object> variables) {
+        val dispatch = stateMachine.dispatch(currentState, action);
+
+        if (dispatch == null) {
+            recordActionRejected(currentState, action);
+            eventPublisher.publishEvent(new StateMachineIllegalActionEvent(currentState, action));
+
+            throw new StateMachineIllegalActionException(String.format(
+                    "StateMachine: Action '%s' is not allowed in current state '%s'.",
+                    action, currentState));
+        }
+
+        if (dispatch.transition() == null) {
+            throw new StateMachineInvalidStateException(String.format(
+                    "StateMachine: Action '%s' is allowed in state '%s' but defines no transition.",
+                    action, currentState));
+        }
+
+        StateTransitionContext context = new StateTransitionContext(
+                currentState,
+                true,
+                variables,
+                name
+        );
+
+        return evaluateStateTransitionForNextState.executeAction(context, dispatch.transition(), evaluationBudget);
+    }
+
+    private void recordActionRejected(String fromState, String action) {
+        val event = new ActionRejectedJfrEvent();
+
+        if (event.isEnabled()) {
+            event.complete(name, fromState, action);
+        }
+    }
+
     private String nextState(String currentState, boolean completedSuccessfully, Map<String, Object> variables) {
-        val transitions = stateTransitions.get(currentState);
+        val event = new TransitionJfrEvent();
+        val recording = event.isEnabled();
+
+        if (recording) {
+            event.begin();
+        }
+
+        String nextState = null;
+        Throwable failure = null;
+
+        try {
+            nextState = resolveNextState(currentState, completedSuccessfully, variables);
+            return nextState;
+        } catch (Throwable e) {
+            failure = e;
+            throw e;
+        } finally {
+            if (recording) {
+                val trigger = completedSuccessfully ? TransitionType.SUCCESS : TransitionType.ERROR;
+                event.complete(name, currentState, trigger.name(), nextState, failure);
+            }
+        }
+    }
+
+    private String resolveNextState(String currentState, boolean completedSuccessfully, Map<String, Object> variables) {
+        val transitions = stateMachine.transitionsOf(currentState);
 
-        if (transitions == null) {
+        if (transitions == null || transitions.isEmpty()) {
             throw new StateMachineInvalidStateException(String.format(
                     "StateMachine: No transitions defined for state '%s'.", currentState));
         }
@@ -120,9 +358,10 @@ public class SimpleStateMachineService {
         StateTransitionContext context = new StateTransitionContext(
                 currentState,
                 completedSuccessfully,
-                variables
+                variables,
+                name
         );
 
-        return evaluateStateTransitionForNextState.execute(context, transitions);
+        return evaluateStateTransitionForNextState.execute(context, transitions, evaluationBudget);
     }
 }
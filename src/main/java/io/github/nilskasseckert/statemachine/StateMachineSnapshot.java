@@ -0,0 +1,499 @@
+package io.github.nilskasseckert.statemachine;
+
+import io.github.nilskasseckert.statemachine.control.EvaluateStateTransitionForNextStateComponent;
+import io.github.nilskasseckert.statemachine.entity.*;
+import lombok.val;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Compiled state machine that can be stored in and loaded from a compact binary file, bypassing JSON
+ * deserialization at startup.
+ * <p>
+ * The file starts with a magic number, the format version, the SHA-256 hash of the JSON source it was compiled
+ * from and the SHA-256 checksum of the body. The body consists of an interned string table (state names, actions, targets and SpEL sources), the states with
+ * their parent, region, allowed-action mask and transitions as index arrays, and the evaluation budget. Files are
+ * read through a memory-mapped buffer without reflection. A snapshot whose version, source hash or body checksum
+ * does not match is ignored. The checksum detects damaged files, it does not authenticate them: snapshots must be
+ * kept in a directory that only the application can write to.
+ */
+public final class StateMachineSnapshot {
+
+    public static final int FORMAT_VERSION = 3;
+
+    private static final Log log = LogFactory.getLog(StateMachineSnapshot.class);
+
+    private static final int MAGIC = 0x53534D53; // "SSMS"
+    private static final int HASH_LENGTH = 32;
+    private static final int NONE = -1;
+
+    private static final byte SUCCESS = 0;
+    private static final byte ERROR = 1;
+    private static final byte CONDITIONAL = 2;
+    private static final byte ACTION = 3;
+
+    private static final byte CONDITION_WHEN = 0;
+    private static final byte CONDITION_ELSE = 1;
+
+    private final CompiledStateMachine stateMachine;
+
+    private StateMachineSnapshot(CompiledStateMachine stateMachine) {
+        this.stateMachine = stateMachine;
+    }
+
+    public static StateMachineSnapshot compile(StateMachineConfig config) {
+        return new StateMachineSnapshot(CompiledStateMachine.compile(config));
+    }
+
+    public static byte[] contentHash(byte[] source) {
+        return checksum(ByteBuffer.wrap(source));
+    }
+
+    /**
+     * Loads the snapshot for the given JSON source, or compiles the source with the parser and writes a new snapshot
+     * if the file is missing, outdated or unreadable. Failing to write the snapshot does not fail the call.
+     */
+    public static StateMachineSnapshot loadOrCompile(Path file, byte[] source,
+                                                     Function<byte[], StateMachineConfig> parser) {
+        val contentHash = contentHash(source);
+        val existing = read(file, contentHash);
+
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+
+        val snapshot = compile(parser.apply(source));
+
+        try {
+            snapshot.write(file, contentHash);
+        } catch (IOException e) {
+            log.warn(String.format("StateMachine: Could not write snapshot '%s'.", file), e);
+        }
+
+        return snapshot;
+    }
+
+    /**
+     * Reads the snapshot, returning an empty result if the file does not exist, was written by another format
+     * version, was compiled from a different source or is corrupt.
+     */
+    public static Optional<StateMachineSnapshot> read(Path file, byte[] contentHash) {
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            val buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (buffer.remaining() < 8 + 2 * HASH_LENGTH || buffer.getInt() != MAGIC
+                    || buffer.getInt() != FORMAT_VERSION) {
+                return Optional.empty();
+            }
+
+            val storedHash = new byte[HASH_LENGTH];
+            buffer.get(storedHash);
+
+            if (!Arrays.equals(storedHash, contentHash)) {
+                return Optional.empty();
+            }
+
+            val storedChecksum = new byte[HASH_LENGTH];
+            buffer.get(storedChecksum);
+
+            if (!Arrays.equals(storedChecksum, checksum(buffer.duplicate()))) {
+                log.warn(String.format("StateMachine: Ignoring snapshot '%s' with invalid checksum.", file));
+                return Optional.empty();
+            }
+
+            return Optional.of(new StateMachineSnapshot(decode(buffer)));
+        } catch (IOException | BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException
+                 | IllegalArgumentException e) {
+            log.warn(String.format("StateMachine: Ignoring unreadable snapshot '%s'.", file), e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Writes the snapshot atomically, replacing an existing file. On POSIX file systems the file is only readable
+     * and writable by its owner.
+     */
+    public void write(Path file, byte[] contentHash) throws IOException {
+        if (contentHash.length != HASH_LENGTH) {
+            throw new IllegalArgumentException(String.format(
+                    "StateMachine: Content hash must have %d bytes but has %d.", HASH_LENGTH, contentHash.length));
+        }
+
+        val directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+
+        val body = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(body)) {
+            encode(out);
+        }
+        val bodyBytes = body.toByteArray();
+
+        val temporaryFile = createOwnerOnlyFile(directory, file.getFileName().toString());
+
+        try {
+            try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(temporaryFile))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.write(contentHash);
+                out.write(checksum(ByteBuffer.wrap(bodyBytes)));
+                out.write(bodyBytes);
+            }
+
+            Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    public SimpleStateMachineService createService(
+            ApplicationEventPublisher eventPublisher,
+            EvaluateStateTransitionForNextStateComponent evaluateStateTransitionForNextState
+    ) {
+        return createService(SimpleStateMachineService.DEFAULT_NAME, eventPublisher, evaluateStateTransitionForNextState);
+    }
+
+    public SimpleStateMachineService createService(
+            String name,
+            ApplicationEventPublisher eventPublisher,
+            EvaluateStateTransitionForNextStateComponent evaluateStateTransitionForNextState
+    ) {
+        return new SimpleStateMachineService(name, stateMachine, eventPublisher, evaluateStateTransitionForNextState);
+    }
+
+    // helper
+    private static byte[] checksum(ByteBuffer body) {
+        try {
+            val digest = MessageDigest.getInstance("SHA-256");
+            digest.update(body);
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("StateMachine: SHA-256 is not available.", e);
+        }
+    }
+
+    private static Path createOwnerOnlyFile(Path directory, String prefix) throws IOException {
+        if (!directory.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            return Files.createTempFile(directory, prefix, ".tmp");
+        }
+
+        FileAttribute<Set<PosixFilePermission>> ownerOnly =
+                PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------"));
+        return Files.createTempFile(directory, prefix, ".tmp", ownerOnly);
+    }
+
+    private void encode(DataOutputStream out) throws IOException {
+        val stateCount = stateMachine.stateCount();
+        val strings = new StringTable();
+        Map<String, Integer> actionIndex = new LinkedHashMap<>();
+
+        for (int state = 0; state < stateCount; state++) {
+            strings.intern(stateMachine.stateName(state));
+
+            for (val action : stateMachine.ownActionsOf(state)) {
+                actionIndex.putIfAbsent(action, actionIndex.size());
+                strings.intern(action);
+            }
+
+            for (val transition : stateMachine.ownTransitionsOf(state)) {
+                internTransition(strings, transition);
+            }
+        }
+
+        val maskWords = (actionIndex.size() + 63) >>> 6;
+
+        strings.writeTo(out);
+
+        out.writeInt(actionIndex.size());
+        for (val action : actionIndex.keySet()) {
+            out.writeInt(strings.ref(action));
+        }
+
+        out.writeInt(stateCount);
+        for (int state = 0; state < stateCount; state++) {
+            out.writeInt(strings.ref(stateMachine.stateName(state)));
+            out.writeInt(stateMachine.parentOf(state));
+            out.writeInt(stateMachine.regionOf(state));
+            out.writeBoolean(stateMachine.isInitial(state));
+
+            val mask = new long[maskWords];
+            for (val action : stateMachine.ownActionsOf(state)) {
+                val index = actionIndex.get(action);
+                mask[index >>> 6] |= 1L << index;
+            }
+            for (val word : mask) {
+                out.writeLong(word);
+            }
+
+            val transitions = stateMachine.ownTransitionsOf(state);
+            out.writeInt(transitions.size());
+            for (val transition : transitions) {
+                writeTransition(out, strings, transition);
+            }
+        }
+
+        val budget = stateMachine.evaluationBudget();
+        out.writeBoolean(budget != null);
+        if (budget != null) {
+            out.writeLong(budget.getMaxDurationMillis());
+            out.writeInt(budget.getFailureThreshold());
+            out.writeLong(budget.getOpenDurationMillis());
+        }
+    }
+
+    private static CompiledStateMachine decode(ByteBuffer buffer) {
+        val strings = StringTable.readFrom(buffer);
+
+        val actions = new String[buffer.getInt()];
+        for (int i = 0; i < actions.length; i++) {
+            actions[i] = string(strings, buffer.getInt());
+        }
+
+        val maskWords = (actions.length + 63) >>> 6;
+        val stateCount = buffer.getInt();
+        val stateNames = new String[stateCount];
+        val parents = new int[stateCount];
+        val regions = new int[stateCount];
+        val initials = new boolean[stateCount];
+        List<List<AbstractTransitionEntity>> ownTransitions = new ArrayList<>(stateCount);
+        List<List<String>> ownActions = new ArrayList<>(stateCount);
+
+        for (int state = 0; state < stateCount; state++) {
+            stateNames[state] = strings[buffer.getInt()];
+            parents[state] = buffer.getInt();
+            regions[state] = buffer.getInt();
+            initials[state] = buffer.get() != 0;
+
+            List<String> allowedActions = new ArrayList<>();
+            for (int word = 0; word < maskWords; word++) {
+                long mask = buffer.getLong();
+
+                while (mask != 0) {
+                    allowedActions.add(actions[(word << 6) + Long.numberOfTrailingZeros(mask)]);
+                    mask &= mask - 1;
+                }
+            }
+            ownActions.add(allowedActions);
+
+            val transitionCount = buffer.getInt();
+            List<AbstractTransitionEntity> transitions = new ArrayList<>(transitionCount);
+            for (int i = 0; i < transitionCount; i++) {
+                transitions.add(readTransition(buffer, strings, stateNames[state]));
+            }
+            ownTransitions.add(transitions);
+        }
+
+        val budget = buffer.get() != 0
+                ? new EvaluationBudgetEntity(buffer.getLong(), buffer.getInt(), buffer.getLong())
+                : null;
+
+        return new CompiledStateMachine(stateNames, parents, regions, initials, ownTransitions, ownActions, budget);
+    }
+
+    private static void internTransition(StringTable strings, AbstractTransitionEntity transition) {
+        if (transition instanceof SuccessTransitionEntity success) {
+            strings.intern(success.getTo());
+        } else if (transition instanceof ErrorTransitionEntity error) {
+            strings.intern(error.getTo());
+        } else if (transition instanceof ConditionalTransitionEntity conditional) {
+            internConditions(strings, conditional.getConditions());
+            strings.intern(conditional.getFallback());
+        } else if (transition instanceof ActionTransitionEntity action) {
+            strings.intern(action.getAction());
+            strings.intern(action.getTo());
+            internConditions(strings, action.getConditions());
+            strings.intern(action.getFallback());
+        }
+    }
+
+    private static void internConditions(StringTable strings, List<ConditionalTransitionEntity.Condition> conditions) {
+        if (conditions == null) {
+            return;
+        }
+
+        for (val condition : conditions) {
+            if (condition instanceof ConditionalTransitionEntity.ConditionWhen when) {
+                strings.intern(when.getWhen());
+            }
+            strings.intern(condition.getTo());
+        }
+    }
+
+    private static void writeTransition(DataOutputStream out, StringTable strings, AbstractTransitionEntity transition)
+            throws IOException {
+        if (transition instanceof SuccessTransitionEntity success) {
+            out.writeByte(SUCCESS);
+            out.writeInt(strings.ref(success.getTo()));
+        } else if (transition instanceof ErrorTransitionEntity error) {
+            out.writeByte(ERROR);
+            out.writeInt(strings.ref(error.getTo()));
+        } else if (transition instanceof ConditionalTransitionEntity conditional) {
+            out.writeByte(CONDITIONAL);
+            out.writeBoolean(conditional.getOn() == TransitionType.SUCCESS);
+            writeConditions(out, strings, conditional.getConditions());
+            out.writeInt(strings.ref(conditional.getFallback()));
+        } else if (transition instanceof ActionTransitionEntity action) {
+            out.writeByte(ACTION);
+            out.writeInt(strings.ref(action.getAction()));
+            out.writeInt(strings.ref(action.getTo()));
+            writeConditions(out, strings, action.getConditions());
+            out.writeInt(strings.ref(action.getFallback()));
+        } else {
+            throw new IllegalArgumentException(String.format(
+                    "StateMachine: Unsupported transition type %s.", transition.getClass().getName()));
+        }
+    }
+
+    private static void writeConditions(DataOutputStream out, StringTable strings,
+                                        List<ConditionalTransitionEntity.Condition> conditions) throws IOException {
+        if (conditions == null) {
+            out.writeInt(NONE);
+            return;
+        }
+
+        out.writeInt(conditions.size());
+        for (val condition : conditions) {
+            if (condition instanceof ConditionalTransitionEntity.ConditionWhen when) {
+                out.writeByte(CONDITION_WHEN);
+                out.writeInt(strings.ref(when.getWhen()));
+            } else if (condition instanceof ConditionalTransitionEntity.ConditionElse) {
+                out.writeByte(CONDITION_ELSE);
+            } else {
+                throw new IllegalArgumentException(String.format(
+                        "StateMachine: Unsupported condition type %s.", condition.getClass().getName()));
+            }
+            out.writeInt(strings.ref(condition.getTo()));
+        }
+    }
+
+    private static AbstractTransitionEntity readTransition(ByteBuffer buffer, String[] strings, String from) {
+        val type = buffer.get();
+
+        AbstractTransitionEntity transition = switch (type) {
+            case SUCCESS -> new SuccessTransitionEntity(string(strings, buffer.getInt()));
+            case ERROR -> new ErrorTransitionEntity(string(strings, buffer.getInt()));
+            case CONDITIONAL -> {
+                val conditional = new ConditionalTransitionEntity(
+                        buffer.get() != 0 ? TransitionType.SUCCESS : TransitionType.ERROR,
+                        readConditions(buffer, strings));
+                conditional.setFallback(string(strings, buffer.getInt()));
+                yield conditional;
+            }
+            case ACTION -> {
+                val action = new ActionTransitionEntity(
+                        string(strings, buffer.getInt()),
+                        string(strings, buffer.getInt()),
+                        readConditions(buffer, strings));
+                action.setFallback(string(strings, buffer.getInt()));
+                yield action;
+            }
+            default -> throw new IllegalArgumentException(String.format(
+                    "StateMachine: Unknown transition type %d in snapshot.", type));
+        };
+
+        transition.setFrom(from);
+        transition.setType(switch (type) {
+            case SUCCESS -> TransitionType.SUCCESS;
+            case ERROR -> TransitionType.ERROR;
+            case CONDITIONAL -> TransitionType.CONDITIONAL;
+            default -> TransitionType.ACTION;
+        });
+
+        return transition;
+    }
+
+    private static List<ConditionalTransitionEntity.Condition> readConditions(ByteBuffer buffer, String[] strings) {
+        val count = buffer.getInt();
+
+        if (count == NONE) {
+            return null;
+        }
+
+        List<ConditionalTransitionEntity.Condition> conditions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            val kind = buffer.get();
+
+            if (kind == CONDITION_WHEN) {
+                val when = string(strings, buffer.getInt());
+                conditions.add(new ConditionalTransitionEntity.ConditionWhen(when, string(strings, buffer.getInt())));
+            } else if (kind == CONDITION_ELSE) {
+                conditions.add(new ConditionalTransitionEntity.ConditionElse(string(strings, buffer.getInt())));
+            } else {
+                throw new IllegalArgumentException(String.format(
+                        "StateMachine: Unknown condition type %d in snapshot.", kind));
+            }
+        }
+
+        return conditions;
+    }
+
+    private static String string(String[] strings, int ref) {
+        return ref == NONE ? null : strings[ref];
+    }
+
+    private static final class StringTable {
+
+        private final Map<String, Integer> refs = new LinkedHashMap<>();
+
+        void intern(String value) {
+            if (value != null) {
+                refs.putIfAbsent(value, refs.size());
+            }
+        }
+
+        int ref(String value) {
+            return value == null ? NONE : refs.get(value);
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            out.writeInt(refs.size());
+
+            for (val value : refs.keySet()) {
+                val bytes = value.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+        }
+
+        static String[] readFrom(ByteBuffer buffer) {
+            val strings = new String[buffer.getInt()];
+
+            for (int i = 0; i < strings.length; i++) {
+                val bytes = new byte[buffer.getInt()];
+                buffer.get(bytes);
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+
+            return strings;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package io.github.nilskasseckert.statemachine.config;
 
 import io.github.nilskasseckert.statemachine.SimpleStateMachineFactory;
 import io.github.nilskasseckert.statemachine.SimpleStateMachineService;
+import io.github.nilskasseckert.statemachine.StateMachineSnapshot;
 import io.github.nilskasseckert.statemachine.control.EvaluateConditionalTransitionComponent;
 import io.github.nilskasseckert.statemachine.control.EvaluateStateTransitionForNextStateComponent;
 import io.github.nilskasseckert.statemachine.entity.StateMachineConfig;
@@ -19,6 +20,7 @@ import org.springframework.core.type.AnnotatedTypeMetadata;
 import tools.jackson.databind.ObjectMapper;
 
 import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -40,10 +42,29 @@ public class SimpleStateMachineMultiAutoConfiguration {
         val conditionalEval = new EvaluateConditionalTransitionComponent();
         val transitionEval = new EvaluateStateTransitionForNextStateComponent(conditionalEval);
 
+        val snapshotDirectory = environment.getProperty("simple-state-machine.snapshot-directory");
+
         Map<String, SimpleStateMachineService> stateMachines = new HashMap<>();
 
         for (var entry : definitions.entrySet()) {
             val resource = new ClassPathResource(entry.getValue());
+
+            if (snapshotDirectory != null) {
+                byte[] source;
+
+                try (InputStream stream = resource.getInputStream()) {
+                    source = stream.readAllBytes();
+                }
+
+                val snapshot = StateMachineSnapshot.loadOrCompile(
+                        Path.of(snapshotDirectory, entry.getKey() + ".smsnap"),
+                        source,
+                        bytes -> objectMapper.readValue(bytes, StateMachineConfig.class));
+
+                stateMachines.put(entry.getKey(), snapshot.createService(entry.getKey(), eventPublisher, transitionEval));
+                continue;
+            }
+
             StateMachineConfig config;
 
             try (InputStream stream = resource.getInputStream()) {
@@ -51,7 +72,7 @@ public class SimpleStateMachineMultiAutoConfiguration {
             }
 
             stateMachines.put(entry.getKey(),
-                    new SimpleStateMachineService(config, eventPublisher, transitionEval));
+                    new SimpleStateMachineService(entry.getKey(), config, eventPublisher, transitionEval));
         }
 
         return new SimpleStateMachineFactory(stateMachines);
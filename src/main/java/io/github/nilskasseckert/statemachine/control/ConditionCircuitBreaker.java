@@ -0,0 +1,167 @@
+package io.github.nilskasseckert.statemachine.control;
+
+import io.github.nilskasseckert.statemachine.entity.EvaluationBudgetEntity;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Circuit breaker of a single SpEL condition.
+ * <p>
+ * The circuit opens after {@link EvaluationBudgetEntity#getFailureThreshold()} consecutive evaluations that were
+ * slower than the budget or threw. Once {@link EvaluationBudgetEntity#getOpenDurationMillis()} has passed, a single
+ * trial evaluation is let through: if it succeeds the circuit closes, otherwise it opens again. All times are
+ * monotonic nanoseconds as returned by {@link System#nanoTime()}.
+ * <p>
+ * Acquiring and recording in the closed state only read volatile fields and update an atomic counter. The monitor
+ * is only taken to change the state.
+ */
+public class ConditionCircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String from;
+    private final String condition;
+    private final long maxDurationNanos;
+    private final int failureThreshold;
+    private final long openDurationNanos;
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private volatile State state = State.CLOSED;
+    private volatile long openedAtNanos;
+    private volatile long lastDurationNanos;
+
+    // guarded by this
+    private Thread trialThread;
+
+    ConditionCircuitBreaker(String from, String condition, EvaluationBudgetEntity budget) {
+        this.from = from;
+        this.condition = condition;
+        this.maxDurationNanos = Duration.ofMillis(budget.getMaxDurationMillis()).toNanos();
+        this.failureThreshold = Math.max(1, budget.getFailureThreshold());
+        this.openDurationNanos = Duration.ofMillis(budget.getOpenDurationMillis()).toNanos();
+    }
+
+    public String getFrom() {
+        return from;
+    }
+
+    public String getCondition() {
+        return condition;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public int getConsecutiveFailures() {
+        return consecutiveFailures.get();
+    }
+
+    public Duration getLastDuration() {
+        return Duration.ofNanos(lastDurationNanos);
+    }
+
+    /**
+     * Returns whether the condition may be evaluated now, moving an open circuit to half-open once its open
+     * duration has passed. The calling thread then holds the single trial of the half-open circuit and has to
+     * record its result.
+     */
+    boolean tryAcquire(long nowNanos) {
+        State current = state;
+
+        if (current == State.CLOSED) {
+            return true;
+        }
+
+        if (current == State.HALF_OPEN || nowNanos - openedAtNanos < openDurationNanos) {
+            return false;
+        }
+
+        return startTrial(nowNanos);
+    }
+
+    /**
+     * Records an evaluation that returned. Only the trial of a half-open circuit closes it. Results of evaluations
+     * that were acquired before the circuit opened are ignored while it is open or half-open.
+     */
+    void recordEvaluation(long durationNanos, long nowNanos) {
+        lastDurationNanos = durationNanos;
+
+        if (durationNanos > maxDurationNanos) {
+            recordFailure(nowNanos);
+            return;
+        }
+
+        State current = state;
+
+        if (current == State.CLOSED) {
+            if (consecutiveFailures.get() != 0) {
+                consecutiveFailures.set(0);
+            }
+        } else if (current == State.HALF_OPEN) {
+            closeAfterTrial();
+        }
+    }
+
+    /**
+     * Records an evaluation that threw, including {@link Error}s.
+     */
+    void recordFailure(long durationNanos, long nowNanos) {
+        lastDurationNanos = durationNanos;
+        recordFailure(nowNanos);
+    }
+
+    // helper
+    private void recordFailure(long nowNanos) {
+        State current = state;
+
+        if (current == State.CLOSED) {
+            if (consecutiveFailures.incrementAndGet() >= failureThreshold) {
+                open(State.CLOSED, nowNanos);
+            }
+        } else if (current == State.HALF_OPEN) {
+            open(State.HALF_OPEN, nowNanos);
+        }
+    }
+
+    private synchronized boolean startTrial(long nowNanos) {
+        if (state != State.OPEN || nowNanos - openedAtNanos < openDurationNanos) {
+            return state == State.CLOSED;
+        }
+
+        trialThread = Thread.currentThread();
+        state = State.HALF_OPEN;
+        return true;
+    }
+
+    private synchronized void closeAfterTrial() {
+        if (state == State.HALF_OPEN && trialThread == Thread.currentThread()) {
+            consecutiveFailures.set(0);
+            trialThread = null;
+            state = State.CLOSED;
+        }
+    }
+
+    private synchronized void open(State expected, long nowNanos) {
+        if (state != expected || (expected == State.HALF_OPEN && trialThread != Thread.currentThread())) {
+            return;
+        }
+
+        if (expected == State.HALF_OPEN) {
+            consecutiveFailures.incrementAndGet();
+        }
+
+        trialThread = null;
+        openedAtNanos = nowNanos;
+        state = State.OPEN;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ConditionCircuitBreaker[from=%s, condition=%s, state=%s, consecutiveFailures=%d]",
+                from, condition, state, consecutiveFailures.get());
+    }
+}
@@ -0,0 +1,59 @@
+package io.github.nilskasseckert.statemachine.control;
+
+import io.github.nilskasseckert.statemachine.entity.AbstractTransitionEntity;
+import io.github.nilskasseckert.statemachine.entity.ActionTransitionEntity;
+import io.github.nilskasseckert.statemachine.entity.ConditionalTransitionEntity;
+import io.github.nilskasseckert.statemachine.entity.EvaluationBudgetEntity;
+import lombok.val;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Circuit breakers for all {@code when} conditions of one state machine, keyed by condition instance.
+ */
+public class ConditionEvaluationBudget {
+
+    private final Map<ConditionalTransitionEntity.ConditionWhen, ConditionCircuitBreaker> circuitBreakers =
+            new IdentityHashMap<>();
+    private final List<ConditionCircuitBreaker> circuitBreakerList = new ArrayList<>();
+
+    public ConditionEvaluationBudget(EvaluationBudgetEntity budget, List<AbstractTransitionEntity> transitions) {
+        for (val transition : transitions) {
+            if (transition instanceof ConditionalTransitionEntity conditional) {
+                register(budget, transition.getFrom(), conditional.getConditions());
+            }
+
+            if (transition instanceof ActionTransitionEntity action) {
+                register(budget, transition.getFrom(), action.getConditions());
+            }
+        }
+    }
+
+    public List<ConditionCircuitBreaker> getCircuitBreakers() {
+        return Collections.unmodifiableList(circuitBreakerList);
+    }
+
+    ConditionCircuitBreaker circuitBreakerFor(ConditionalTransitionEntity.ConditionWhen condition) {
+        return circuitBreakers.get(condition);
+    }
+
+    // helper
+    private void register(EvaluationBudgetEntity budget, String from, List<ConditionalTransitionEntity.Condition> conditions) {
+        if (conditions == null) {
+            return;
+        }
+
+        for (val condition : conditions) {
+            if (condition instanceof ConditionalTransitionEntity.ConditionWhen when
+                    && !circuitBreakers.containsKey(when)) {
+                val circuitBreaker = new ConditionCircuitBreaker(from, when.getWhen(), budget);
+                circuitBreakers.put(when, circuitBreaker);
+                circuitBreakerList.add(circuitBreaker);
+            }
+        }
+    }
+}
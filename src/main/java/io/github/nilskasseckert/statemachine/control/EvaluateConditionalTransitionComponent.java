@@ -3,7 +3,8 @@ package io.github.nilskasseckert.statemachine.control;
 import io.github.nilskasseckert.statemachine.annotation.StateMachineComponent;
 import io.github.nilskasseckert.statemachine.entity.ConditionalTransitionEntity;
 import io.github.nilskasseckert.statemachine.entity.StateTransitionContext;
-import lombok.NoArgsConstructor;
+import io.github.nilskasseckert.statemachine.exception.StateMachineConditionCircuitOpenException;
+import io.github.nilskasseckert.statemachine.jfr.ConditionEvaluationJfrEvent;
 import lombok.val;
 import org.springframework.expression.EvaluationContext;
 import org.springframework.expression.ExpressionParser;
@@ -11,36 +12,126 @@ import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.expression.spel.support.StandardEvaluationContext;
 
 import java.util.Comparator;
+import java.util.List;
+import java.util.function.LongSupplier;
 
 @StateMachineComponent
-@NoArgsConstructor
 public class EvaluateConditionalTransitionComponent {
 
     private final ExpressionParser parser = new SpelExpressionParser();
+    private final LongSupplier nanoTime;
+
+    public EvaluateConditionalTransitionComponent() {
+        this(System::nanoTime);
+    }
+
+    /**
+     * @param nanoTime monotonic time source in nanoseconds, used to measure conditions and open circuits
+     */
+    public EvaluateConditionalTransitionComponent(LongSupplier nanoTime) {
+        this.nanoTime = nanoTime;
+    }
 
     public String execute(StateTransitionContext context, ConditionalTransitionEntity conditionalTransition) {
+        return execute(context, conditionalTransition, null);
+    }
+
+    public String execute(StateTransitionContext context, ConditionalTransitionEntity conditionalTransition,
+                          ConditionEvaluationBudget evaluationBudget) {
+        return execute(context, conditionalTransition.getConditions(), conditionalTransition.getFallback(),
+                evaluationBudget);
+    }
+
+    /**
+     * Returns the target of the first matching condition. If an evaluation budget is given and the circuit of a
+     * condition is open, the fallback is returned instead, or the evaluation fails fast without one.
+     * Each {@code when} condition is recorded as a {@link ConditionEvaluationJfrEvent} while the event is enabled.
+     */
+    public String execute(StateTransitionContext context, List<ConditionalTransitionEntity.Condition> conditions,
+                          String fallback, ConditionEvaluationBudget evaluationBudget) {
         val evaluationContext = createEvaluationContext(context);
 
-        val nextStateByCondition = conditionalTransition.getConditions().stream()
+        val sortedConditions = conditions.stream()
                 .sorted(Comparator.comparingInt(ConditionalTransitionEntity.Condition::getOrder))
-                .filter((condition) -> handleEvaluateCondition(evaluationContext, condition))
-                .map(ConditionalTransitionEntity.Condition::getTo)
-                .findFirst();
+                .toList();
+
+        for (int index = 0; index < sortedConditions.size(); index++) {
+            val condition = sortedConditions.get(index);
+
+            if (condition instanceof ConditionalTransitionEntity.ConditionWhen when) {
+                val event = new ConditionEvaluationJfrEvent();
+                val recording = event.isEnabled();
+
+                if (recording) {
+                    event.begin();
+                }
+
+                val circuitBreaker = evaluationBudget != null
+                        ? evaluationBudget.circuitBreakerFor(when)
+                        : null;
+
+                if (circuitBreaker != null && !circuitBreaker.tryAcquire(nanoTime.getAsLong())) {
+                    if (recording) {
+                        complete(event, context, index, when, ConditionEvaluationJfrEvent.Outcome.CIRCUIT_OPEN);
+                    }
+
+                    return handleOpenCircuit(context, circuitBreaker, fallback);
+                }
+
+                boolean matched;
+
+                try {
+                    matched = Boolean.TRUE.equals(handleWhenCondition(evaluationContext, when, circuitBreaker));
+                } catch (Throwable e) {
+                    if (recording) {
+                        complete(event, context, index, when, ConditionEvaluationJfrEvent.Outcome.FAILED);
+                    }
 
-        return nextStateByCondition.orElse(null);
+                    throw e;
+                }
+
+                if (recording) {
+                    complete(event, context, index, when, matched
+                            ? ConditionEvaluationJfrEvent.Outcome.MATCHED
+                            : ConditionEvaluationJfrEvent.Outcome.NOT_MATCHED);
+                }
+
+                if (matched) {
+                    return when.getTo();
+                }
+            }
+
+            if (condition instanceof ConditionalTransitionEntity.ConditionElse) {
+                return condition.getTo();
+            }
+        }
+
+        return null;
     }
 
     // helper
-    private Boolean handleEvaluateCondition(EvaluationContext evaluationContext, ConditionalTransitionEntity.Condition condition) {
-        if (condition instanceof ConditionalTransitionEntity.ConditionWhen) {
-            return handleWhenCondition(evaluationContext, (ConditionalTransitionEntity.ConditionWhen) condition);
+    private Boolean handleWhenCondition(EvaluationContext evaluationContext, ConditionalTransitionEntity.ConditionWhen condition,
+                                        ConditionCircuitBreaker circuitBreaker) {
+        if (circuitBreaker == null) {
+            return handleWhenCondition(evaluationContext, condition);
         }
 
-        if (condition instanceof ConditionalTransitionEntity.ConditionElse) {
-            return true;
+        val start = nanoTime.getAsLong();
+        Boolean result;
+
+        try {
+            result = handleWhenCondition(evaluationContext, condition);
+        } catch (Throwable e) {
+            // errors such as a StackOverflowError count as well, otherwise a failed trial would never be recorded
+            val end = nanoTime.getAsLong();
+            circuitBreaker.recordFailure(end - start, end);
+            throw e;
         }
 
-        return null;
+        val end = nanoTime.getAsLong();
+        circuitBreaker.recordEvaluation(end - start, end);
+
+        return result;
     }
 
     private Boolean handleWhenCondition(EvaluationContext evaluationContext, ConditionalTransitionEntity.ConditionWhen condition) {
@@ -48,6 +139,22 @@ public class EvaluateConditionalTransitionComponent {
         return expression.getValue(evaluationContext, Boolean.class);
     }
 
+    private void complete(ConditionEvaluationJfrEvent event, StateTransitionContext context, int index,
+                          ConditionalTransitionEntity.ConditionWhen condition, ConditionEvaluationJfrEvent.Outcome outcome) {
+        event.complete(context.getMachine(), context.getCurrentState(), index, condition.getWhen(), condition.getTo(),
+                outcome);
+    }
+
+    private String handleOpenCircuit(StateTransitionContext context, ConditionCircuitBreaker circuitBreaker, String fallback) {
+        if (fallback != null) {
+            return fallback;
+        }
+
+        throw new StateMachineConditionCircuitOpenException(String.format(
+                "StateMachine: Circuit of condition '%s' is open in current state '%s' and no fallback is defined.",
+                circuitBreaker.getCondition(), context.getCurrentState()));
+    }
+
     private StandardEvaluationContext createEvaluationContext(StateTransitionContext context) {
         val evaluationContext = new StandardEvaluationContext();
 
@@ -16,9 +16,14 @@ public class EvaluateStateTransitionForNextStateComponent {
     private final EvaluateConditionalTransitionComponent conditionalTransitionEvaluation;
 
     public String execute(StateTransitionContext context, List<AbstractTransitionEntity> transitions) {
+        return execute(context, transitions, null);
+    }
+
+    public String execute(StateTransitionContext context, List<AbstractTransitionEntity> transitions,
+                          ConditionEvaluationBudget evaluationBudget) {
 
         val nextState = transitions.stream()
-                .map(entry -> handleTransition(context, entry))
+                .map(entry -> handleTransition(context, entry, evaluationBudget))
                 .filter(Objects::nonNull)
                 .findFirst();
 
@@ -32,8 +37,26 @@ public class EvaluateStateTransitionForNextStateComponent {
         return nextState.get();
     }
 
+    public String executeAction(StateTransitionContext context, ActionTransitionEntity transition,
+                                ConditionEvaluationBudget evaluationBudget) {
+        val nextState = transition.getConditions() != null
+                ? conditionalTransitionEvaluation.execute(context, transition.getConditions(), transition.getFallback(),
+                        evaluationBudget)
+                : transition.getTo();
+
+        if (nextState == null) {
+            throw new StateMachineInvalidStateException(String.format(
+                    "StateMachine: No valid next state found for action '%s' in current state '%s'.",
+                    transition.getAction(),
+                    context.getCurrentState()));
+        }
+
+        return nextState;
+    }
+
     // helper
-    private String handleTransition(StateTransitionContext context, AbstractTransitionEntity transitionEntry) {
+    private String handleTransition(StateTransitionContext context, AbstractTransitionEntity transitionEntry,
+                                    ConditionEvaluationBudget evaluationBudget) {
         if (transitionEntry instanceof SuccessTransitionEntity) {
             return handleSuccessTransitionEntry(context.getCompletedSuccessfully(), (SuccessTransitionEntity) transitionEntry);
         }
@@ -43,7 +66,7 @@ public class EvaluateStateTransitionForNextStateComponent {
         }
 
         if (transitionEntry instanceof ConditionalTransitionEntity) {
-            return handleConditionalTransitionEntry(context, (ConditionalTransitionEntity) transitionEntry);
+            return handleConditionalTransitionEntry(context, (ConditionalTransitionEntity) transitionEntry, evaluationBudget);
         }
 
         return null;
@@ -65,14 +88,15 @@ public class EvaluateStateTransitionForNextStateComponent {
         return null;
     }
 
-    private String handleConditionalTransitionEntry(StateTransitionContext context, ConditionalTransitionEntity transitionEntry) {
+    private String handleConditionalTransitionEntry(StateTransitionContext context, ConditionalTransitionEntity transitionEntry,
+                                                    ConditionEvaluationBudget evaluationBudget) {
         val expectsSuccess = transitionEntry.getOn() == TransitionType.SUCCESS;
 
         if (context.getCompletedSuccessfully() != expectsSuccess) {
             return null;
         }
 
-        return conditionalTransitionEvaluation.execute(context, transitionEntry);
+        return conditionalTransitionEvaluation.execute(context, transitionEntry, evaluationBudget);
     }
 
 }
@@ -21,6 +21,7 @@ import java.io.Serializable;
         @JsonSubTypes.Type(value = SuccessTransitionEntity.class, name = "SUCCESS"),
         @JsonSubTypes.Type(value = ErrorTransitionEntity.class, name = "ERROR"),
         @JsonSubTypes.Type(value = ConditionalTransitionEntity.class, name = "CONDITIONAL"),
+        @JsonSubTypes.Type(value = ActionTransitionEntity.class, name = "ACTION"),
 })
 public abstract class AbstractTransitionEntity implements Serializable {
     private String from;
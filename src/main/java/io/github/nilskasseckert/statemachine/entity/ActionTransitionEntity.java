@@ -0,0 +1,30 @@
+package io.github.nilskasseckert.statemachine.entity;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * Transition triggered by an action. Either {@code to} is set, or {@code conditions} guard the action the same way
+ * as a {@link ConditionalTransitionEntity}.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ActionTransitionEntity extends AbstractTransitionEntity {
+    private String action;
+    private String to;
+    private List<ConditionalTransitionEntity.Condition> conditions;
+
+    /**
+     * Target used instead of evaluating the conditions while a condition's circuit is open.
+     */
+    private String fallback;
+
+    public ActionTransitionEntity(String action, String to, List<ConditionalTransitionEntity.Condition> conditions) {
+        this.action = action;
+        this.to = to;
+        this.conditions = conditions;
+    }
+}
@@ -15,6 +15,16 @@ public class ConditionalTransitionEntity extends AbstractTransitionEntity {
     private TransitionType on;
     private List<Condition> conditions;
 
+    /**
+     * Target used instead of evaluating the conditions while a condition's circuit is open.
+     */
+    private String fallback;
+
+    public ConditionalTransitionEntity(TransitionType on, List<Condition> conditions) {
+        this.on = on;
+        this.conditions = conditions;
+    }
+
     public TransitionType getOn() {
         return on != null ? on : TransitionType.SUCCESS;
     }
@@ -0,0 +1,21 @@
+package io.github.nilskasseckert.statemachine.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Latency budget for SpEL conditions of a state machine. A condition that exceeds {@code maxDurationMillis} or throws
+ * {@code failureThreshold} times in a row opens its circuit for {@code openDurationMillis}, during which the
+ * transition resolves to its {@code fallback} or fails fast.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EvaluationBudgetEntity implements Serializable {
+    private long maxDurationMillis = 100;
+    private int failureThreshold = 5;
+    private long openDurationMillis = 30_000;
+}
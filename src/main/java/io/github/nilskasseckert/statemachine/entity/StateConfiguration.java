@@ -0,0 +1,93 @@
+package io.github.nilskasseckert.statemachine.entity;
+
+import java.util.Arrays;
+
+/**
+ * The set of active states of a hierarchical state machine, encoded as a bitset over the state indices of the
+ * machine it was created by. Machines with up to 64 states can store a configuration as a single {@code long}.
+ * <p>
+ * State indices follow the declaration order of the states, followed by states only referenced by transitions.
+ * Persisted configurations therefore stay valid only while states are appended; persist the state fingerprint of
+ * the machine along with them to detect other changes.
+ */
+public final class StateConfiguration {
+
+    private static final long[] EMPTY = new long[0];
+
+    private final long[] words;
+
+    private StateConfiguration(long[] words) {
+        int length = words.length;
+        while (length > 0 && words[length - 1] == 0) {
+            length--;
+        }
+
+        this.words = length == 0 ? EMPTY : Arrays.copyOf(words, length);
+    }
+
+    public static StateConfiguration ofLongArray(long[] words) {
+        return new StateConfiguration(words);
+    }
+
+    public static StateConfiguration ofLong(long word) {
+        return new StateConfiguration(new long[]{word});
+    }
+
+    public long[] toLongArray() {
+        return words.clone();
+    }
+
+    public long[] toLongArray(int wordCount) {
+        return Arrays.copyOf(words, Math.max(wordCount, words.length));
+    }
+
+    public long toLong() {
+        if (words.length > 1) {
+            throw new IllegalStateException(String.format(
+                    "StateMachine: Configuration %s does not fit into a single long.", this));
+        }
+
+        return words.length == 0 ? 0L : words[0];
+    }
+
+    /**
+     * Number of words up to the highest active state, for iterating the set bits without copying.
+     */
+    public int wordCount() {
+        return words.length;
+    }
+
+    public long word(int index) {
+        return words[index];
+    }
+
+    public boolean contains(int stateIndex) {
+        int word = stateIndex >>> 6;
+        return word < words.length && (words[word] & (1L << stateIndex)) != 0;
+    }
+
+    public boolean isEmpty() {
+        return words.length == 0;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof StateConfiguration configuration && Arrays.equals(words, configuration.words);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(words);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("StateConfiguration[");
+
+        for (int i = words.length - 1; i >= 0; i--) {
+            builder.append(String.format("%016x", words[i]));
+        }
+
+        return builder.append(']').toString();
+    }
+}
@@ -13,4 +13,25 @@ import java.util.List;
 public class StateEntity implements Serializable {
     private String state;
     private List<String> allowedActions;
+
+    /**
+     * Optional enclosing state. Nested states inherit the transitions and allowed actions of their parent.
+     */
+    private String parent;
+
+    /**
+     * Optional orthogonal region within the parent. Children of the same parent in different regions are active
+     * at the same time.
+     */
+    private String region;
+
+    /**
+     * Marks the state entered by default when its region is entered. Defaults to the first state of the region.
+     */
+    private Boolean initial;
+
+    public StateEntity(String state, List<String> allowedActions) {
+        this.state = state;
+        this.allowedActions = allowedActions;
+    }
 }
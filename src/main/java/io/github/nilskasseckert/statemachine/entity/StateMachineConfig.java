@@ -10,4 +10,5 @@ import java.util.List;
 public class StateMachineConfig {
     private List<StateEntity> states;
     private List<AbstractTransitionEntity> transitions;
+    private EvaluationBudgetEntity evaluationBudget;
 }
@@ -13,4 +13,9 @@ public class StateTransitionContext {
     private String currentState;
     private Boolean completedSuccessfully;
     private Map<String, Object> variables;
+    private String machine;
+
+    public StateTransitionContext(String currentState, Boolean completedSuccessfully, Map<String, Object> variables) {
+        this(currentState, completedSuccessfully, variables, null);
+    }
 }
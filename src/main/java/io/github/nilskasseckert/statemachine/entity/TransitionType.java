@@ -1,5 +1,5 @@
 package io.github.nilskasseckert.statemachine.entity;
 
 public enum TransitionType {
-    SUCCESS, ERROR, CONDITIONAL
+    SUCCESS, ERROR, CONDITIONAL, ACTION
 }
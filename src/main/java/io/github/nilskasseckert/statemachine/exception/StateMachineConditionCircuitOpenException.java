@@ -0,0 +1,7 @@
+package io.github.nilskasseckert.statemachine.exception;
+
+public class StateMachineConditionCircuitOpenException extends StateMachineException {
+    public StateMachineConditionCircuitOpenException(String msg) {
+        super(msg);
+    }
+}
@@ -0,0 +1,9 @@
+package io.github.nilskasseckert.statemachine.jdbc;
+
+public record AppliedTransition(
+        Object id,
+        String fromState,
+        String toState,
+        long version
+) {
+}
@@ -0,0 +1,228 @@
+package io.github.nilskasseckert.statemachine.jdbc;
+
+import io.github.nilskasseckert.statemachine.SimpleStateMachineService;
+import io.github.nilskasseckert.statemachine.exception.StateMachineException;
+import lombok.val;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowMapper;
+
+import javax.sql.DataSource;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Applies state machine transitions to rows of a table with an id, a state and a version column.
+ * <p>
+ * Next states are decided by the {@link SimpleStateMachineService}, the resulting updates are written as one
+ * JDBC batch of {@code UPDATE ... WHERE id = ? AND state = ? AND version = ?} statements. Rows that were changed
+ * concurrently, have no valid next state or whose conditions or variables throw are reported as
+ * {@link TransitionConflict}s instead of failing the batch.
+ * <p>
+ * Chunks are selected with keyset pagination on the id column. The chunk size is applied with
+ * {@link Statement#setMaxRows(int)} instead of a {@code LIMIT} clause, so the queries run unchanged on databases
+ * without {@code LIMIT} support such as Oracle or SQL Server.
+ * <p>
+ * Stale rows can only be detected if the driver reports an update count per statement. Drivers that return
+ * {@link Statement#SUCCESS_NO_INFO} for batches have all rows of the batch reported as applied.
+ * <p>
+ * The executor does not open transactions itself, each batch runs in the surrounding transaction if there is one.
+ */
+public class JdbcStateMachineTransitionExecutor {
+
+    private static final Function<StateRow, Map<String, Object>> NO_VARIABLES = row -> Map.of();
+
+    private final SimpleStateMachineService stateMachineService;
+    private final JdbcTemplate jdbcTemplate;
+
+    private final String updateSql;
+    private final String selectFirstChunkSql;
+    private final String selectNextChunkSql;
+    private final RowMapper<StateRow> rowMapper;
+
+    public JdbcStateMachineTransitionExecutor(
+            SimpleStateMachineService stateMachineService,
+            DataSource dataSource,
+            StateMachineTable table
+    ) {
+        this(stateMachineService, new JdbcTemplate(dataSource), table);
+    }
+
+    public JdbcStateMachineTransitionExecutor(
+            SimpleStateMachineService stateMachineService,
+            JdbcTemplate jdbcTemplate,
+            StateMachineTable table
+    ) {
+        this.stateMachineService = stateMachineService;
+        this.jdbcTemplate = jdbcTemplate;
+
+        updateSql = String.format(
+                "UPDATE %1$s SET %3$s = ?, %4$s = %4$s + 1 WHERE %2$s = ? AND %3$s = ? AND %4$s = ?",
+                table.tableName(), table.idColumn(), table.stateColumn(), table.versionColumn());
+
+        val selectSql = String.format("SELECT %2$s, %3$s, %4$s FROM %1$s WHERE %3$s = ?",
+                table.tableName(), table.idColumn(), table.stateColumn(), table.versionColumn());
+
+        selectFirstChunkSql = String.format("%s ORDER BY %s",
+                selectSql, table.idColumn());
+        selectNextChunkSql = String.format("%s AND %2$s > ? ORDER BY %2$s",
+                selectSql, table.idColumn());
+
+        rowMapper = (rs, rowNum) -> new StateRow(
+                rs.getObject(table.idColumn()),
+                rs.getString(table.stateColumn()),
+                rs.getLong(table.versionColumn()));
+    }
+
+    public JdbcTransitionResult applySuccess(List<StateRow> rows) {
+        return apply(rows, true, NO_VARIABLES);
+    }
+
+    public JdbcTransitionResult applySuccess(List<StateRow> rows, Function<StateRow, Map<String, Object>> variables) {
+        return apply(rows, true, variables);
+    }
+
+    public JdbcTransitionResult applyError(List<StateRow> rows) {
+        return apply(rows, false, NO_VARIABLES);
+    }
+
+    public JdbcTransitionResult applyError(List<StateRow> rows, Function<StateRow, Map<String, Object>> variables) {
+        return apply(rows, false, variables);
+    }
+
+    public JdbcTransitionResult advanceAllForSuccess(String state, int chunkSize) {
+        return advanceAll(state, true, chunkSize, NO_VARIABLES);
+    }
+
+    public JdbcTransitionResult advanceAllForSuccess(String state, int chunkSize,
+                                                     Function<StateRow, Map<String, Object>> variables) {
+        return advanceAll(state, true, chunkSize, variables);
+    }
+
+    public JdbcTransitionResult advanceAllForError(String state, int chunkSize) {
+        return advanceAll(state, false, chunkSize, NO_VARIABLES);
+    }
+
+    public JdbcTransitionResult advanceAllForError(String state, int chunkSize,
+                                                   Function<StateRow, Map<String, Object>> variables) {
+        return advanceAll(state, false, chunkSize, variables);
+    }
+
+    /**
+     * Loads the next chunk of rows in the given state, ordered by id and starting after {@code afterId}
+     * ({@code null} for the first chunk).
+     */
+    public List<StateRow> findByState(String state, Object afterId, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException(String.format(
+                    "StateMachine: Limit must be positive but was %d.", limit));
+        }
+
+        PreparedStatementSetter parameters = ps -> {
+            ps.setString(1, state);
+            if (afterId != null) {
+                ps.setObject(2, afterId);
+            }
+            ps.setMaxRows(limit);
+            ps.setFetchSize(limit);
+        };
+
+        return jdbcTemplate.query(afterId == null ? selectFirstChunkSql : selectNextChunkSql, parameters, rowMapper);
+    }
+
+    // helper
+    private JdbcTransitionResult advanceAll(String state, boolean completedSuccessfully, int chunkSize,
+                                            Function<StateRow, Map<String, Object>> variables) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException(String.format(
+                    "StateMachine: Chunk size must be positive but was %d.", chunkSize));
+        }
+
+        List<AppliedTransition> applied = new ArrayList<>();
+        List<TransitionConflict> conflicts = new ArrayList<>();
+        Object lastId = null;
+
+        while (true) {
+            val rows = findByState(state, lastId, chunkSize);
+
+            if (rows.isEmpty()) {
+                break;
+            }
+
+            applyChunk(rows, completedSuccessfully, variables, applied, conflicts);
+
+            if (rows.size() < chunkSize) {
+                break;
+            }
+
+            lastId = rows.get(rows.size() - 1).id();
+        }
+
+        return new JdbcTransitionResult(applied, conflicts);
+    }
+
+    private JdbcTransitionResult apply(List<StateRow> rows, boolean completedSuccessfully,
+                                      Function<StateRow, Map<String, Object>> variables) {
+        List<AppliedTransition> applied = new ArrayList<>();
+        List<TransitionConflict> conflicts = new ArrayList<>();
+
+        applyChunk(rows, completedSuccessfully, variables, applied, conflicts);
+
+        return new JdbcTransitionResult(applied, conflicts);
+    }
+
+    private void applyChunk(List<StateRow> rows, boolean completedSuccessfully,
+                            Function<StateRow, Map<String, Object>> variables,
+                            List<AppliedTransition> applied, List<TransitionConflict> conflicts) {
+        List<StateRow> pendingRows = new ArrayList<>(rows.size());
+        List<String> pendingStates = new ArrayList<>(rows.size());
+        List<Object[]> batchArgs = new ArrayList<>(rows.size());
+
+        for (val row : rows) {
+            String nextState;
+
+            try {
+                nextState = completedSuccessfully
+                        ? stateMachineService.nextStateForSuccess(row.state(), variables.apply(row))
+                        : stateMachineService.nextStateForError(row.state(), variables.apply(row));
+            } catch (StateMachineException e) {
+                conflicts.add(new TransitionConflict(row.id(), row.state(), row.version(),
+                        TransitionConflict.Reason.NO_TRANSITION, e.getMessage(), e));
+                continue;
+            } catch (RuntimeException e) {
+                conflicts.add(new TransitionConflict(row.id(), row.state(), row.version(),
+                        TransitionConflict.Reason.EVALUATION_FAILED, String.format(
+                        "StateMachine: Evaluating the transition of row '%s' in state '%s' failed: %s",
+                        row.id(), row.state(), e), e));
+                continue;
+            }
+
+            pendingRows.add(row);
+            pendingStates.add(nextState);
+            batchArgs.add(new Object[]{nextState, row.id(), row.state(), row.version()});
+        }
+
+        if (batchArgs.isEmpty()) {
+            return;
+        }
+
+        val updateCounts = jdbcTemplate.batchUpdate(updateSql, batchArgs);
+
+        for (int i = 0; i < pendingRows.size(); i++) {
+            val row = pendingRows.get(i);
+
+            // drivers that cannot report per-statement counts return SUCCESS_NO_INFO, treat those rows as applied
+            if (updateCounts[i] > 0 || updateCounts[i] == Statement.SUCCESS_NO_INFO) {
+                applied.add(new AppliedTransition(row.id(), row.state(), pendingStates.get(i), row.version() + 1));
+            } else {
+                conflicts.add(new TransitionConflict(row.id(), row.state(), row.version(),
+                        TransitionConflict.Reason.STALE_ROW, String.format(
+                        "StateMachine: Row '%s' is no longer in state '%s' with version %d.",
+                        row.id(), row.state(), row.version()), null));
+            }
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package io.github.nilskasseckert.statemachine.jdbc;
+
+import java.util.List;
+
+public record JdbcTransitionResult(
+        List<AppliedTransition> applied,
+        List<TransitionConflict> conflicts
+) {
+
+    public boolean hasConflicts() {
+        return !conflicts.isEmpty();
+    }
+}
@@ -0,0 +1,32 @@
+package io.github.nilskasseckert.statemachine.jdbc;
+
+import java.util.regex.Pattern;
+
+public record StateMachineTable(
+        String tableName,
+        String idColumn,
+        String stateColumn,
+        String versionColumn
+) {
+
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*(\\.[A-Za-z_][A-Za-z0-9_]*)?");
+
+    public StateMachineTable {
+        requireIdentifier("table name", tableName);
+        requireIdentifier("id column", idColumn);
+        requireIdentifier("state column", stateColumn);
+        requireIdentifier("version column", versionColumn);
+    }
+
+    public static StateMachineTable of(String tableName) {
+        return new StateMachineTable(tableName, "id", "state", "version");
+    }
+
+    // helper
+    private static void requireIdentifier(String kind, String value) {
+        if (value == null || !IDENTIFIER.matcher(value).matches()) {
+            throw new IllegalArgumentException(String.format(
+                    "StateMachine: Invalid %s '%s' for JDBC state machine table.", kind, value));
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package io.github.nilskasseckert.statemachine.jdbc;
+
+public record StateRow(
+        Object id,
+        String state,
+        long version
+) {
+}
@@ -0,0 +1,28 @@
+package io.github.nilskasseckert.statemachine.jdbc;
+
+public record TransitionConflict(
+        Object id,
+        String state,
+        long version,
+        Reason reason,
+        String message,
+        Throwable cause
+) {
+
+    public enum Reason {
+        /**
+         * The row no longer matches the expected state and version, it was changed concurrently.
+         */
+        STALE_ROW,
+
+        /**
+         * The state machine has no valid next state for the row.
+         */
+        NO_TRANSITION,
+
+        /**
+         * Evaluating the transition of the row threw, for example a condition or the variables function.
+         */
+        EVALUATION_FAILED
+    }
+}
@@ -0,0 +1,38 @@
+package io.github.nilskasseckert.statemachine.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Action that was rejected by {@code requireActionAllowed} or {@code fire} because no active state allows it.
+ */
+@Name(ActionRejectedJfrEvent.NAME)
+@Label("State Machine Action Rejected")
+@Category("State Machine")
+@Description("Action that is not allowed in the current state")
+public class ActionRejectedJfrEvent extends Event {
+
+    public static final String NAME = "io.github.nilskasseckert.statemachine.ActionRejected";
+
+    @Label("Machine")
+    String machine;
+
+    @Label("From State")
+    @Description("Current state, or the comma separated active states of a configuration")
+    String fromState;
+
+    @Label("Action")
+    String action;
+
+    public void complete(String machine, String fromState, String action) {
+        if (shouldCommit()) {
+            this.machine = machine;
+            this.fromState = fromState;
+            this.action = action;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package io.github.nilskasseckert.statemachine.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Evaluation of a single SpEL {@code when} condition. Conditions skipped because of an open circuit are recorded
+ * with outcome {@code CIRCUIT_OPEN}.
+ */
+@Name(ConditionEvaluationJfrEvent.NAME)
+@Label("State Machine Condition Evaluation")
+@Category("State Machine")
+@Description("Evaluation of a SpEL condition of a conditional transition")
+@StackTrace(false)
+public class ConditionEvaluationJfrEvent extends Event {
+
+    public static final String NAME = "io.github.nilskasseckert.statemachine.ConditionEvaluation";
+
+    public enum Outcome {
+        MATCHED, NOT_MATCHED, FAILED, CIRCUIT_OPEN
+    }
+
+    @Label("Machine")
+    String machine;
+
+    @Label("From State")
+    String fromState;
+
+    @Label("To State")
+    @Description("Target of the condition")
+    String toState;
+
+    @Label("Condition Index")
+    @Description("Position of the condition in the evaluation order of its transition")
+    int conditionIndex;
+
+    @Label("Condition")
+    String condition;
+
+    @Label("Outcome")
+    String outcome;
+
+    public void complete(String machine, String fromState, int conditionIndex, String condition, String toState,
+                         Outcome outcome) {
+        if (shouldCommit()) {
+            this.machine = machine;
+            this.fromState = fromState;
+            this.conditionIndex = conditionIndex;
+            this.condition = condition;
+            this.toState = toState;
+            this.outcome = outcome.name();
+            commit();
+        }
+    }
+}
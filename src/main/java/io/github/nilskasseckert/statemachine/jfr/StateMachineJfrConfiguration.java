@@ -0,0 +1,39 @@
+package io.github.nilskasseckert.statemachine.jfr;
+
+import jdk.jfr.Configuration;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+
+/**
+ * Access to the bundled {@code .jfc} settings, which enable the state machine events.
+ */
+public final class StateMachineJfrConfiguration {
+
+    public static final String RESOURCE = "jfr/simple-state-machine.jfc";
+
+    private StateMachineJfrConfiguration() {
+    }
+
+    /**
+     * Loads the bundled settings, for example to start a recording with {@code new Recording(configuration)}.
+     */
+    public static Configuration load() {
+        try (var stream = StateMachineJfrConfiguration.class.getClassLoader().getResourceAsStream(RESOURCE)) {
+            if (stream == null) {
+                throw new IllegalStateException(String.format(
+                        "StateMachine: JFR settings '%s' not found on the classpath.", RESOURCE));
+            }
+
+            return Configuration.create(new InputStreamReader(stream, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (ParseException e) {
+            throw new IllegalStateException(String.format(
+                    "StateMachine: JFR settings '%s' are invalid.", RESOURCE), e);
+        }
+    }
+}
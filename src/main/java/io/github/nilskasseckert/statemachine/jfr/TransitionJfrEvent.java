@@ -0,0 +1,58 @@
+package io.github.nilskasseckert.statemachine.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Resolution of the next state by {@code nextStateForSuccess}, {@code nextStateForError} or {@code fire}.
+ * The duration covers the lookup and the evaluation of all conditions.
+ */
+@Name(TransitionJfrEvent.NAME)
+@Label("State Machine Transition")
+@Category("State Machine")
+@Description("Resolution of the next state of a state machine")
+@StackTrace(false)
+public class TransitionJfrEvent extends Event {
+
+    public static final String NAME = "io.github.nilskasseckert.statemachine.Transition";
+
+    public enum Outcome {
+        TRANSITIONED, FAILED
+    }
+
+    @Label("Machine")
+    String machine;
+
+    @Label("From State")
+    String fromState;
+
+    @Label("To State")
+    String toState;
+
+    @Label("Trigger")
+    @Description("SUCCESS, ERROR or the fired action")
+    String trigger;
+
+    @Label("Outcome")
+    String outcome;
+
+    @Label("Failure")
+    @Description("Class of the exception if the transition failed")
+    Class<?> failure;
+
+    public void complete(String machine, String fromState, String trigger, String toState, Throwable failure) {
+        if (shouldCommit()) {
+            this.machine = machine;
+            this.fromState = fromState;
+            this.trigger = trigger;
+            this.toState = toState;
+            this.outcome = failure == null ? Outcome.TRANSITIONED.name() : Outcome.FAILED.name();
+            this.failure = failure != null ? failure.getClass() : null;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package io.github.nilskasseckert.statemachine;
+
+import io.github.nilskasseckert.statemachine.control.ConditionCircuitBreaker;
+import io.github.nilskasseckert.statemachine.control.EvaluateConditionalTransitionComponent;
+import io.github.nilskasseckert.statemachine.control.EvaluateStateTransitionForNextStateComponent;
+import io.github.nilskasseckert.statemachine.entity.ConditionalTransitionEntity;
+import io.github.nilskasseckert.statemachine.entity.EvaluationBudgetEntity;
+import io.github.nilskasseckert.statemachine.entity.StateEntity;
+import io.github.nilskasseckert.statemachine.entity.StateMachineConfig;
+import io.github.nilskasseckert.statemachine.entity.TransitionType;
+import io.github.nilskasseckert.statemachine.exception.StateMachineConditionCircuitOpenException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConditionEvaluationBudgetTest {
+
+    private final TestClock clock = new TestClock();
+    private final EvaluateStateTransitionForNextStateComponent transitionEval =
+            new EvaluateStateTransitionForNextStateComponent(new EvaluateConditionalTransitionComponent(clock));
+
+    private byte[] source;
+    private SimpleStateMachineService stateMachine;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        try (InputStream in = new ClassPathResource("state-machine/inventory.json").getInputStream()) {
+            source = in.readAllBytes();
+        }
+        stateMachine = new SimpleStateMachineService(parse(source), event -> { }, transitionEval);
+    }
+
+    @Test
+    void shouldKeepCircuitClosedWithinBudget() {
+        var inventory = new TestInventory(clock, Duration.ofMillis(10), true);
+
+        assertEquals("RESERVED", stateMachine.nextStateForSuccess("CHECK_STOCK", Map.of("inventory", inventory)));
+
+        var circuitBreaker = circuitBreakerOf("CHECK_STOCK");
+        assertEquals(ConditionCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertEquals(Duration.ofMillis(10), circuitBreaker.getLastDuration());
+    }
+
+    @Test
+    void shouldUseFallbackWhileCircuitIsOpen() {
+        var slow = new TestInventory(clock, Duration.ofMillis(80), true);
+
+        assertEquals("RESERVED", stateMachine.nextStateForSuccess("CHECK_STOCK", Map.of("inventory", slow)));
+        assertEquals("RESERVED", stateMachine.nextStateForSuccess("CHECK_STOCK", Map.of("inventory", slow)));
+        assertEquals(ConditionCircuitBreaker.State.OPEN, circuitBreakerOf("CHECK_STOCK").getState());
+
+        assertEquals("MANUAL_REVIEW", stateMachine.nextStateForSuccess("CHECK_STOCK", Map.of("inventory", slow)));
+        assertEquals(2, slow.evaluations.get());
+    }
+
+    @Test
+    void shouldFailFastWithoutFallback() {
+        var failing = new TestInventory(clock, Duration.ZERO, null);
+
+        for (int i = 0; i < 2; i++) {
+            assertThrows(RuntimeException.class, () ->
+                    stateMachine.nextStateForSuccess("RESERVED", Map.of("inventory", failing)));
+        }
+
+        assertEquals(ConditionCircuitBreaker.State.OPEN, circuitBreakerOf("RESERVED").getState());
+        assertThrows(StateMachineConditionCircuitOpenException.class, () ->
+                stateMachine.nextStateForSuccess("RESERVED", Map.of("inventory", failing)));
+        assertEquals(2, failing.evaluations.get());
+    }
+
+    @Test
+    void shouldCloseCircuitAfterSuccessfulTrial() {
+        openCircuitOfCheckStock();
+        clock.advance(Duration.ofMillis(1000));
+
+        var fast = new TestInventory(clock, Duration.ofMillis(5), false);
+        assertEquals("BACKORDERED", stateMachine.nextStateForSuccess("CHECK_STOCK", Map.of("inventory", fast)));
+
+        var circuitBreaker = circuitBreakerOf("CHECK_STOCK");
+        assertEquals(ConditionCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertEquals(0, circuitBreaker.getConsecutiveFailures());
+    }
+
+    @Test
+    void shouldReopenCircuitAfterFailedTrial() {
+        openCircuitOfCheckStock();
+        clock.advance(Duration.ofMillis(1000));
+
+        var slow = new TestInventory(clock, Duration.ofMillis(80), true);
+        assertEquals("RESERVED", stateMachine.nextStateForSuccess("CHECK_STOCK", Map.of("inventory", slow)));
+
+        assertEquals(ConditionCircuitBreaker.State.OPEN, circuitBreakerOf("CHECK_STOCK").getState());
+        assertEquals("MANUAL_REVIEW", stateMachine.nextStateForSuccess("CHECK_STOCK", Map.of("inventory", slow)));
+    }
+
+    @Test
+    void shouldReopenCircuitWhenTrialThrowsError() throws Exception {
+        // nested deep enough to overflow the stack of the parser, which SpEL does not wrap
+        var pathological = "(".repeat(4000) + "true" + ")".repeat(4000);
+        var check = new ConditionalTransitionEntity(TransitionType.SUCCESS, List.of(
+                new ConditionalTransitionEntity.ConditionWhen(pathological, "RESERVED"),
+                new ConditionalTransitionEntity.ConditionElse("BACKORDERED")));
+        check.setFrom("CHECK_STOCK");
+        check.setFallback("MANUAL_REVIEW");
+
+        var config = new StateMachineConfig();
+        config.setStates(List.of(new StateEntity("CHECK_STOCK", List.of())));
+        config.setTransitions(List.of(check));
+        config.setEvaluationBudget(new EvaluationBudgetEntity(50, 1, 1000));
+        stateMachine = new SimpleStateMachineService(config, event -> { }, transitionEval);
+
+        assertInstanceOf(StackOverflowError.class, nextStateOnSmallStack("CHECK_STOCK"));
+        assertEquals(ConditionCircuitBreaker.State.OPEN, circuitBreakerOf("CHECK_STOCK").getState());
+
+        clock.advance(Duration.ofMillis(1000));
+        assertInstanceOf(StackOverflowError.class, nextStateOnSmallStack("CHECK_STOCK"));
+        assertEquals(ConditionCircuitBreaker.State.OPEN, circuitBreakerOf("CHECK_STOCK").getState());
+
+        // a trial that was never recorded would leave the circuit half-open and answer with the fallback forever
+        clock.advance(Duration.ofMillis(1000));
+        assertInstanceOf(StackOverflowError.class, nextStateOnSmallStack("CHECK_STOCK"));
+    }
+
+    @Test
+    void shouldNotCloseOpenCircuitWithLateResult() throws Exception {
+        var failing = new TestInventory(clock, Duration.ZERO, null);
+        var evaluating = new CountDownLatch(1);
+        var opened = new CountDownLatch(1);
+        var late = new TestInventory(clock, Duration.ZERO, true) {
+            @Override
+            public boolean isAvailable() {
+                evaluating.countDown();
+                awaitUninterruptibly(opened);
+                return super.isAvailable();
+            }
+        };
+
+        var thread = new Thread(() -> stateMachine.nextStateForSuccess("CHECK_STOCK", Map.of("inventory", late)));
+        thread.start();
+        evaluating.await();
+
+        for (int i = 0; i < 2; i++) {
+            assertThrows(RuntimeException.class, () ->
+                    stateMachine.nextStateForSuccess("CHECK_STOCK", Map.of("inventory", failing)));
+        }
+        opened.countDown();
+        thread.join();
+
+        var circuitBreaker = circuitBreakerOf("CHECK_STOCK");
+        assertEquals(ConditionCircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertEquals(2, circuitBreaker.getConsecutiveFailures());
+    }
+
+    @Test
+    void shouldKeepBudgetAndFallbackInSnapshot() throws Exception {
+        var file = directory.resolve("inventory.smsnap");
+        var hash = StateMachineSnapshot.contentHash(source);
+
+        StateMachineSnapshot.compile(parse(source)).write(file, hash);
+        stateMachine = StateMachineSnapshot.read(file, hash).orElseThrow().createService(event -> { }, transitionEval);
+
+        openCircuitOfCheckStock();
+
+        assertEquals(2, stateMachine.getConditionCircuitBreakers().size());
+        assertEquals("MANUAL_REVIEW", stateMachine.nextStateForSuccess("CHECK_STOCK",
+                Map.of("inventory", new TestInventory(clock, Duration.ZERO, true))));
+    }
+
+    // helper
+    private void openCircuitOfCheckStock() {
+        var slow = new TestInventory(clock, Duration.ofMillis(80), true);
+
+        for (int i = 0; i < 2; i++) {
+            stateMachine.nextStateForSuccess("CHECK_STOCK", Map.of("inventory", slow));
+        }
+
+        assertEquals(ConditionCircuitBreaker.State.OPEN, circuitBreakerOf("CHECK_STOCK").getState());
+    }
+
+    private Object nextStateOnSmallStack(String state) throws InterruptedException {
+        var result = new AtomicReference<Object>();
+        var thread = new Thread(null, () -> {
+            try {
+                result.set(stateMachine.nextStateForSuccess(state));
+            } catch (Throwable e) {
+                result.set(e);
+            }
+        }, "small-stack", 256 * 1024);
+
+        thread.start();
+        thread.join();
+
+        return result.get();
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private ConditionCircuitBreaker circuitBreakerOf(String from) {
+        return stateMachine.getConditionCircuitBreakers().stream()
+                .filter(circuitBreaker -> circuitBreaker.getFrom().equals(from))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private StateMachineConfig parse(byte[] source) {
+        return JsonMapper.builder().build().readValue(source, StateMachineConfig.class);
+    }
+
+    static class TestClock implements LongSupplier {
+        private volatile long nanos = 1_000_000_000L;
+
+        @Override
+        public long getAsLong() {
+            return nanos;
+        }
+
+        void advance(Duration duration) {
+            nanos += duration.toNanos();
+        }
+    }
+
+    /**
+     * Advances the clock on every evaluation to simulate a slow getter, and throws if no result is given.
+     */
+    public static class TestInventory {
+        private final TestClock clock;
+        private final Duration latency;
+        private final Boolean available;
+        private final AtomicInteger evaluations = new AtomicInteger();
+
+        TestInventory(TestClock clock, Duration latency, Boolean available) {
+            this.clock = clock;
+            this.latency = latency;
+            this.available = available;
+        }
+
+        public boolean isAvailable() {
+            evaluations.incrementAndGet();
+            clock.advance(latency);
+
+            if (available == null) {
+                throw new IllegalStateException("inventory unavailable");
+            }
+
+            return available;
+        }
+    }
+}
@@ -56,6 +56,12 @@ class SimpleStateMachineFactoryTest {
         assertTrue(paymentStateMachine.isActionAllowedForState("AUTHORIZED", "CAPTURE"));
     }
 
+    @Test
+    void shouldNameStateMachinesByDefinition() {
+        assertEquals("order", stateMachineFactory.get("order").getName());
+        assertEquals("payment", stateMachineFactory.get("payment").getName());
+    }
+
     @Test
     void shouldThrowOnUnknownStateMachine() {
         assertThrows(IllegalArgumentException.class, () ->
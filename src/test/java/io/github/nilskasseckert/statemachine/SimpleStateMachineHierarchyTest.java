@@ -0,0 +1,161 @@
+package io.github.nilskasseckert.statemachine;
+
+import io.github.nilskasseckert.statemachine.control.EvaluateConditionalTransitionComponent;
+import io.github.nilskasseckert.statemachine.control.EvaluateStateTransitionForNextStateComponent;
+import io.github.nilskasseckert.statemachine.entity.StateConfiguration;
+import io.github.nilskasseckert.statemachine.entity.StateEntity;
+import io.github.nilskasseckert.statemachine.entity.StateMachineConfig;
+import io.github.nilskasseckert.statemachine.exception.StateMachineIllegalActionException;
+import io.github.nilskasseckert.statemachine.exception.StateMachineInvalidStateException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "simple-state-machine.definitions.fulfilment=state-machine/fulfilment.json"
+})
+class SimpleStateMachineHierarchyTest {
+
+    @Autowired
+    SimpleStateMachineFactory stateMachineFactory;
+
+    SimpleStateMachineService stateMachine;
+
+    @BeforeEach
+    void setUp() {
+        stateMachine = stateMachineFactory.get("fulfilment");
+    }
+
+    @Test
+    void shouldEnterInitialStatesOfAllRegions() {
+        var configuration = stateMachine.nextConfigurationForSuccess(
+                stateMachine.initialConfiguration("CREATED"), "CREATED");
+
+        assertEquals(List.of("FULFILMENT", "PAYMENT_PENDING", "PICKING", "INVOICE_PENDING"),
+                stateMachine.activeStates(configuration));
+    }
+
+    @Test
+    void shouldAdvanceRegionsIndependently() {
+        var configuration = stateMachine.initialConfiguration("FULFILMENT");
+
+        configuration = stateMachine.nextConfigurationForSuccess(configuration, "PAYMENT_PENDING");
+        configuration = stateMachine.nextConfigurationForSuccess(configuration, "PICKING", Map.of("paid", true));
+
+        assertEquals(List.of("FULFILMENT", "PAID", "SHIPPED", "INVOICE_PENDING"),
+                stateMachine.activeStates(configuration));
+    }
+
+    @Test
+    void shouldReenterStateOfSameRegion() {
+        var configuration = stateMachine.initialConfiguration("FULFILMENT");
+        var next = stateMachine.nextConfigurationForSuccess(configuration, "PICKING", Map.of("paid", false));
+
+        assertEquals(configuration, next);
+    }
+
+    @Test
+    void shouldInheritTransitionsOfParent() {
+        assertEquals("CANCELLED", stateMachine.nextStateForError("PAID"));
+        assertEquals("COMPLETED", stateMachine.nextStateForSuccess("INVOICED"));
+
+        var configuration = stateMachine.nextConfigurationForSuccess(
+                stateMachine.initialConfiguration("FULFILMENT"), "PAYMENT_PENDING");
+        configuration = stateMachine.nextConfigurationForError(configuration, "PAID");
+
+        assertEquals(List.of("CANCELLED"), stateMachine.activeStates(configuration));
+    }
+
+    @Test
+    void shouldInheritAllowedActionsOfParent() {
+        assertTrue(stateMachine.isActionAllowedForState("PAID", "CANCEL"));
+        assertTrue(stateMachine.isActionAllowedForState("PAID", "REFUND"));
+        assertFalse(stateMachine.isActionAllowedForState("FULFILMENT", "REFUND"));
+    }
+
+    @Test
+    void shouldAllowActionsOfAllActiveRegions() {
+        var configuration = stateMachine.initialConfiguration("FULFILMENT");
+
+        assertTrue(stateMachine.isActionAllowedForConfiguration(configuration, "PAY"));
+        assertTrue(stateMachine.isActionAllowedForConfiguration(configuration, "CANCEL"));
+        assertThrows(StateMachineIllegalActionException.class, () ->
+                stateMachine.requireActionAllowed(configuration, "REFUND"));
+    }
+
+    @Test
+    void shouldEncodeConfigurationAsLong() {
+        var configuration = stateMachine.initialConfiguration("FULFILMENT");
+        var restored = StateConfiguration.ofLong(configuration.toLong());
+
+        assertEquals(configuration, restored);
+        assertTrue(stateMachine.isActive(restored, "PICKING"));
+        assertFalse(stateMachine.isActive(restored, "SHIPPED"));
+    }
+
+    @Test
+    void shouldRestoreConfigurationWithStateFingerprint() {
+        var configuration = stateMachine.initialConfiguration("FULFILMENT");
+        var restored = stateMachine.restoreConfiguration(configuration.toLong(), stateMachine.getStateFingerprint());
+
+        assertEquals(configuration, restored);
+        assertThrows(StateMachineInvalidStateException.class, () ->
+                stateMachine.restoreConfiguration(configuration.toLong(), stateMachine.getStateFingerprint() + 1));
+    }
+
+    @Test
+    void shouldRestoreConfigurationAfterAppendingStates() {
+        var original = flatStateMachine("A", "B");
+        var appended = flatStateMachine("A", "B", "C");
+        var reordered = flatStateMachine("B", "A", "C");
+        var configuration = original.initialConfiguration("B");
+
+        assertNotEquals(original.getStateFingerprint(), appended.getStateFingerprint());
+        assertTrue(appended.isActive(
+                appended.restoreConfiguration(configuration.toLong(), original.getStateFingerprint()), "B"));
+        assertThrows(StateMachineInvalidStateException.class, () ->
+                reordered.restoreConfiguration(configuration.toLong(), original.getStateFingerprint()));
+        assertThrows(StateMachineInvalidStateException.class, () ->
+                original.restoreConfiguration(appended.initialConfiguration("C").toLong(),
+                        appended.getStateFingerprint()));
+    }
+
+    @Test
+    void shouldThrowWhenStateIsNotActive() {
+        var configuration = stateMachine.initialConfiguration("FULFILMENT");
+
+        assertThrows(StateMachineInvalidStateException.class, () ->
+                stateMachine.nextConfigurationForSuccess(configuration, "PAID"));
+    }
+
+    @Test
+    void shouldRejectUnknownParent() {
+        var config = new StateMachineConfig();
+        var child = new StateEntity("CHILD", List.of());
+        child.setParent("MISSING");
+        config.setStates(List.of(child));
+        config.setTransitions(List.of());
+
+        var transitionEval = new EvaluateStateTransitionForNextStateComponent(new EvaluateConditionalTransitionComponent());
+
+        assertThrows(IllegalArgumentException.class, () ->
+                new SimpleStateMachineService(config, event -> { }, transitionEval));
+    }
+
+    // helper
+    private static SimpleStateMachineService flatStateMachine(String... states) {
+        var config = new StateMachineConfig();
+        config.setStates(Arrays.stream(states).map(state -> new StateEntity(state, List.of())).toList());
+        config.setTransitions(List.of());
+
+        var transitionEval = new EvaluateStateTransitionForNextStateComponent(new EvaluateConditionalTransitionComponent());
+        return new SimpleStateMachineService(config, event -> { }, transitionEval);
+    }
+}
@@ -1,11 +1,18 @@
 package io.github.nilskasseckert.statemachine;
 
+import io.github.nilskasseckert.statemachine.control.EvaluateConditionalTransitionComponent;
+import io.github.nilskasseckert.statemachine.control.EvaluateStateTransitionForNextStateComponent;
+import io.github.nilskasseckert.statemachine.entity.ActionTransitionEntity;
+import io.github.nilskasseckert.statemachine.entity.ConditionalTransitionEntity;
+import io.github.nilskasseckert.statemachine.entity.StateEntity;
+import io.github.nilskasseckert.statemachine.entity.StateMachineConfig;
 import io.github.nilskasseckert.statemachine.exception.StateMachineIllegalActionException;
 import io.github.nilskasseckert.statemachine.exception.StateMachineInvalidStateException;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -101,6 +108,75 @@ class SimpleStateMachineServiceTest {
         assertEquals("REJECTED", nextState);
     }
 
+    @Test
+    void shouldFireActionTransition() {
+        assertEquals("APPROVED", stateMachineService.fire("REVIEW", "APPROVE"));
+        assertEquals("SHIPPED", stateMachineService.fire("APPROVED", "SHIP"));
+    }
+
+    @Test
+    void shouldFireGuardedActionTransition() {
+        assertEquals("REJECTED", stateMachineService.fire("REVIEW", "REJECT",
+                Map.of("order", new TestOrder(20000))));
+        assertEquals("PROCESSING", stateMachineService.fire("REVIEW", "REJECT",
+                Map.of("order", new TestOrder(500))));
+    }
+
+    @Test
+    void shouldThrowOnFiringIllegalAction() {
+        assertThrows(StateMachineIllegalActionException.class, () ->
+                stateMachineService.fire("CREATED", "APPROVE"));
+    }
+
+    @Test
+    void shouldThrowOnFiringActionWithoutTransition() {
+        assertThrows(StateMachineInvalidStateException.class, () ->
+                stateMachineService.fire("ERROR_PROCESSING", "RETRY"));
+    }
+
+    @Test
+    void shouldRejectDuplicateActionTransition() {
+        var approve = new ActionTransitionEntity("APPROVE", "APPROVED", null);
+        approve.setFrom("REVIEW");
+        var duplicate = new ActionTransitionEntity("APPROVE", "REJECTED", null);
+        duplicate.setFrom("REVIEW");
+
+        var config = new StateMachineConfig();
+        config.setStates(List.of(new StateEntity("REVIEW", List.of("APPROVE"))));
+        config.setTransitions(List.of(approve, duplicate));
+
+        var transitionEval = new EvaluateStateTransitionForNextStateComponent(new EvaluateConditionalTransitionComponent());
+
+        assertThrows(IllegalArgumentException.class, () ->
+                new SimpleStateMachineService(config, event -> { }, transitionEval));
+    }
+
+    @Test
+    void shouldRejectActionTransitionWithBothOrNoTarget() {
+        var both = new ActionTransitionEntity("APPROVE", "APPROVED",
+                List.of(new ConditionalTransitionEntity.ConditionElse("REJECTED")));
+        both.setFrom("REVIEW");
+        var neither = new ActionTransitionEntity("APPROVE", null, null);
+        neither.setFrom("REVIEW");
+
+        var transitionEval = new EvaluateStateTransitionForNextStateComponent(new EvaluateConditionalTransitionComponent());
+
+        for (var transition : List.of(both, neither)) {
+            var config = new StateMachineConfig();
+            config.setStates(List.of(new StateEntity("REVIEW", List.of("APPROVE"))));
+            config.setTransitions(List.of(transition));
+
+            assertThrows(IllegalArgumentException.class, () ->
+                    new SimpleStateMachineService(config, event -> { }, transitionEval));
+        }
+    }
+
+    @Test
+    void shouldIgnoreActionTransitionsForSuccess() {
+        assertEquals("APPROVED", stateMachineService.nextStateForSuccess("REVIEW"));
+        assertEquals("SHIPPED", stateMachineService.nextStateForSuccess("APPROVED"));
+    }
+
     public record TestOrder(int totalAmount) {
         public int getTotalAmount() {
             return totalAmount;
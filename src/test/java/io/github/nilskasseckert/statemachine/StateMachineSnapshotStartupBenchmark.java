@@ -0,0 +1,104 @@
+package io.github.nilskasseckert.statemachine;
+
+import io.github.nilskasseckert.statemachine.control.EvaluateConditionalTransitionComponent;
+import io.github.nilskasseckert.statemachine.control.EvaluateStateTransitionForNextStateComponent;
+import io.github.nilskasseckert.statemachine.entity.StateMachineConfig;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares loading state machines from JSON, as done by the multi auto-configuration, against loading them from
+ * binary snapshots.
+ * <p>
+ * Run with {@code mvn -Pbenchmark test -DskipTests
+ * -Dbenchmark.main-class=io.github.nilskasseckert.statemachine.StateMachineSnapshotStartupBenchmark
+ * -Dexec.args="<definitions> <states> <iterations> [json|snapshot|both]"}. The first iteration of a mode run on its
+ * own in a fresh JVM is the closest to a real cold start.
+ */
+public class StateMachineSnapshotStartupBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int definitions = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int states = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        String mode = args.length > 3 ? args[3] : "both";
+
+        Path directory = Files.createTempDirectory("state-machine-snapshots");
+        ObjectMapper objectMapper = JsonMapper.builder().build();
+        var transitionEval = new EvaluateStateTransitionForNextStateComponent(new EvaluateConditionalTransitionComponent());
+
+        List<byte[]> sources = new ArrayList<>();
+        for (int i = 0; i < definitions; i++) {
+            byte[] source = definition(states).getBytes(StandardCharsets.UTF_8);
+            sources.add(source);
+
+            StateMachineSnapshot.compile(objectMapper.readValue(source, StateMachineConfig.class))
+                    .write(snapshotFile(directory, i), StateMachineSnapshot.contentHash(source));
+        }
+
+        System.out.printf("definitions=%d states=%d iterations=%d%n", definitions, states, iterations);
+
+        for (int iteration = 1; iteration <= iterations; iteration++) {
+            if (!mode.equals("snapshot")) {
+                long start = System.nanoTime();
+                for (byte[] source : sources) {
+                    var config = objectMapper.readValue(source, StateMachineConfig.class);
+                    new SimpleStateMachineService(config, event -> { }, transitionEval);
+                }
+                System.out.printf("iteration %2d json:     %8.2f ms%n", iteration, (System.nanoTime() - start) / 1e6);
+            }
+
+            if (!mode.equals("json")) {
+                long start = System.nanoTime();
+                for (int i = 0; i < sources.size(); i++) {
+                    var hash = StateMachineSnapshot.contentHash(sources.get(i));
+                    StateMachineSnapshot.read(snapshotFile(directory, i), hash)
+                            .orElseThrow()
+                            .createService(event -> { }, transitionEval);
+                }
+                System.out.printf("iteration %2d snapshot: %8.2f ms%n", iteration, (System.nanoTime() - start) / 1e6);
+            }
+        }
+    }
+
+    // helper
+    private static Path snapshotFile(Path directory, int index) {
+        return directory.resolve("machine-" + index + ".smsnap");
+    }
+
+    private static String definition(int stateCount) {
+        StringBuilder states = new StringBuilder();
+        StringBuilder transitions = new StringBuilder();
+
+        for (int i = 0; i < stateCount; i++) {
+            String next = "S" + ((i + 1) % stateCount);
+
+            states.append(String.format(
+                    "{\"state\": \"S%d\", \"allowedActions\": [\"ACTION_%d\", \"CANCEL\"]},", i, i % 16));
+
+            if (i % 4 == 1) {
+                transitions.append(String.format(
+                        "{\"type\": \"CONDITIONAL\", \"from\": \"S%d\", \"conditions\": ["
+                                + "{\"when\": \"#order.amount > %d\", \"to\": \"S%d\"}, {\"else\": \"%s\"}]},",
+                        i, i * 10, (i + 2) % stateCount, next));
+            } else {
+                transitions.append(String.format(
+                        "{\"type\": \"SUCCESS\", \"from\": \"S%d\", \"to\": \"%s\"},", i, next));
+            }
+
+            transitions.append(String.format(
+                    "{\"type\": \"ERROR\", \"from\": \"S%d\", \"to\": \"FAILED\"},", i));
+        }
+
+        states.append("{\"state\": \"FAILED\", \"allowedActions\": [\"RETRY\"]}");
+        transitions.append("{\"type\": \"SUCCESS\", \"from\": \"FAILED\", \"to\": \"S0\"}");
+
+        return "{\"states\": [" + states + "], \"transitions\": [" + transitions + "]}";
+    }
+}
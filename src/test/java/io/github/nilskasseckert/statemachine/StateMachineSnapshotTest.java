@@ -0,0 +1,155 @@
+package io.github.nilskasseckert.statemachine;
+
+import io.github.nilskasseckert.statemachine.control.EvaluateConditionalTransitionComponent;
+import io.github.nilskasseckert.statemachine.control.EvaluateStateTransitionForNextStateComponent;
+import io.github.nilskasseckert.statemachine.entity.StateMachineConfig;
+import io.github.nilskasseckert.statemachine.exception.StateMachineIllegalActionException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class StateMachineSnapshotTest {
+
+    private final JsonMapper objectMapper = JsonMapper.builder().build();
+    private final EvaluateStateTransitionForNextStateComponent transitionEval =
+            new EvaluateStateTransitionForNextStateComponent(new EvaluateConditionalTransitionComponent());
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldRestoreFlatStateMachine() throws Exception {
+        var source = read("state-machine/order.json");
+        var file = directory.resolve("order.smsnap");
+        var hash = StateMachineSnapshot.contentHash(source);
+
+        StateMachineSnapshot.compile(parse(source)).write(file, hash);
+        var stateMachine = StateMachineSnapshot.read(file, hash).orElseThrow().createService(event -> { }, transitionEval);
+
+        assertEquals("PROCESSING", stateMachine.nextStateForSuccess("CREATED"));
+        assertEquals("REVIEW", stateMachine.nextStateForSuccess("PROCESSING",
+                Map.of("order", new SimpleStateMachineServiceTest.TestOrder(1500))));
+        assertEquals("REJECTED", stateMachine.nextStateForError("APPROVED",
+                Map.of("error", new SimpleStateMachineServiceTest.TestError(false))));
+        assertEquals("APPROVED", stateMachine.fire("REVIEW", "APPROVE"));
+        assertTrue(stateMachine.isActionAllowedForState("ERROR_PROCESSING", "RETRY"));
+        assertThrows(StateMachineIllegalActionException.class, () ->
+                stateMachine.requireActionAllowed("CREATED", "APPROVE"));
+    }
+
+    @Test
+    void shouldRestoreHierarchicalStateMachine() throws Exception {
+        var source = read("state-machine/fulfilment.json");
+        var file = directory.resolve("fulfilment.smsnap");
+        var hash = StateMachineSnapshot.contentHash(source);
+
+        StateMachineSnapshot.compile(parse(source)).write(file, hash);
+        var stateMachine = StateMachineSnapshot.read(file, hash).orElseThrow().createService(event -> { }, transitionEval);
+
+        var configuration = stateMachine.initialConfiguration("FULFILMENT");
+        assertEquals(List.of("FULFILMENT", "PAYMENT_PENDING", "PICKING", "INVOICE_PENDING"),
+                stateMachine.activeStates(configuration));
+        assertEquals("CANCELLED", stateMachine.nextStateForError("PAID"));
+        assertTrue(stateMachine.isActionAllowedForState("PAID", "CANCEL"));
+    }
+
+    @Test
+    void shouldIgnoreSnapshotOfDifferentSource() throws Exception {
+        var source = read("state-machine/order.json");
+        var file = directory.resolve("order.smsnap");
+
+        StateMachineSnapshot.compile(parse(source)).write(file, StateMachineSnapshot.contentHash(source));
+
+        assertTrue(StateMachineSnapshot.read(file, StateMachineSnapshot.contentHash(read("state-machine/payment.json"))).isEmpty());
+    }
+
+    @Test
+    void shouldIgnoreCorruptSnapshot() throws Exception {
+        var source = read("state-machine/order.json");
+        var file = directory.resolve("order.smsnap");
+        var hash = StateMachineSnapshot.contentHash(source);
+
+        StateMachineSnapshot.compile(parse(source)).write(file, hash);
+        var bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length / 2));
+
+        assertTrue(StateMachineSnapshot.read(file, hash).isEmpty());
+    }
+
+    @Test
+    void shouldIgnoreSnapshotWithModifiedBody() throws Exception {
+        var source = read("state-machine/order.json");
+        var file = directory.resolve("order.smsnap");
+        var hash = StateMachineSnapshot.contentHash(source);
+
+        StateMachineSnapshot.compile(parse(source)).write(file, hash);
+        var bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(file, bytes);
+
+        assertTrue(StateMachineSnapshot.read(file, hash).isEmpty());
+    }
+
+    @Test
+    void shouldWriteSnapshotReadableByOwnerOnly() throws Exception {
+        assumeTrue(directory.getFileSystem().supportedFileAttributeViews().contains("posix"));
+        var source = read("state-machine/order.json");
+        var file = directory.resolve("order.smsnap");
+
+        StateMachineSnapshot.compile(parse(source)).write(file, StateMachineSnapshot.contentHash(source));
+
+        assertEquals(PosixFilePermissions.fromString("rw-------"), Files.getPosixFilePermissions(file));
+    }
+
+    @Test
+    void shouldCompileOnlyWhenSnapshotIsMissingOrOutdated() throws Exception {
+        var file = directory.resolve("machine.smsnap");
+        var parseCount = new AtomicInteger();
+        var order = read("state-machine/order.json");
+        var payment = read("state-machine/payment.json");
+
+        StateMachineSnapshot.loadOrCompile(file, order, bytes -> {
+            parseCount.incrementAndGet();
+            return parse(bytes);
+        });
+        var cached = StateMachineSnapshot.loadOrCompile(file, order, bytes -> {
+            parseCount.incrementAndGet();
+            return parse(bytes);
+        });
+
+        assertEquals(1, parseCount.get());
+        assertEquals("PROCESSING", cached.createService(event -> { }, transitionEval).nextStateForSuccess("CREATED"));
+
+        var changed = StateMachineSnapshot.loadOrCompile(file, payment, bytes -> {
+            parseCount.incrementAndGet();
+            return parse(bytes);
+        });
+
+        assertEquals(2, parseCount.get());
+        assertEquals("AUTHORIZED", changed.createService(event -> { }, transitionEval).nextStateForSuccess("PENDING"));
+    }
+
+    // helper
+    private static byte[] read(String path) throws Exception {
+        try (InputStream stream = new ClassPathResource(path).getInputStream()) {
+            return stream.readAllBytes();
+        }
+    }
+
+    private StateMachineConfig parse(byte[] source) {
+        return objectMapper.readValue(source, StateMachineConfig.class);
+    }
+}
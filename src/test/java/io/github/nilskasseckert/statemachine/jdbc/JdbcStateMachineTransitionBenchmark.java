@@ -0,0 +1,118 @@
+package io.github.nilskasseckert.statemachine.jdbc;
+
+import io.github.nilskasseckert.statemachine.SimpleStateMachineService;
+import io.github.nilskasseckert.statemachine.control.EvaluateConditionalTransitionComponent;
+import io.github.nilskasseckert.statemachine.control.EvaluateStateTransitionForNextStateComponent;
+import io.github.nilskasseckert.statemachine.entity.StateMachineConfig;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares row-by-row transitions against the batched {@link JdbcStateMachineTransitionExecutor} on an embedded H2
+ * database.
+ * <p>
+ * Run with {@code mvn -Pbenchmark test -DskipTests [-Dexec.args="<rows> <chunkSize> <rounds>"]}.
+ */
+public class JdbcStateMachineTransitionBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int chunkSize = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        var database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+
+        try {
+            var jdbcTemplate = new JdbcTemplate(database);
+            jdbcTemplate.execute("CREATE TABLE orders (id BIGINT PRIMARY KEY, state VARCHAR(64) NOT NULL, version BIGINT NOT NULL)");
+
+            var stateMachineService = createStateMachineService();
+            var executor = new JdbcStateMachineTransitionExecutor(stateMachineService, jdbcTemplate, StateMachineTable.of("orders"));
+
+            System.out.printf("rows=%d chunkSize=%d rounds=%d%n", rows, chunkSize, rounds);
+
+            for (int round = 0; round <= rounds; round++) {
+                var label = round == 0 ? "warmup" : "round " + round;
+
+                resetTable(jdbcTemplate, rows);
+                long rowByRowNanos = runRowByRow(jdbcTemplate, stateMachineService, chunkSize);
+
+                resetTable(jdbcTemplate, rows);
+                long start = System.nanoTime();
+                var result = executor.advanceAllForSuccess("CREATED", chunkSize);
+                long batchedNanos = System.nanoTime() - start;
+
+                if (result.applied().size() != rows) {
+                    throw new IllegalStateException("Batched run applied " + result.applied().size() + " of " + rows + " rows");
+                }
+
+                System.out.printf("%-8s row-by-row: %,10.0f rows/s   batched: %,10.0f rows/s   speedup: %.1fx%n",
+                        label,
+                        rows / (rowByRowNanos / 1e9),
+                        rows / (batchedNanos / 1e9),
+                        (double) rowByRowNanos / batchedNanos);
+            }
+        } finally {
+            database.shutdown();
+        }
+    }
+
+    // helper
+    private static long runRowByRow(JdbcTemplate jdbcTemplate, SimpleStateMachineService stateMachineService, int chunkSize) {
+        long start = System.nanoTime();
+        long lastId = Long.MIN_VALUE;
+
+        while (true) {
+            var rows = jdbcTemplate.query(
+                    "SELECT id, state, version FROM orders WHERE state = ? AND id > ? ORDER BY id LIMIT ?",
+                    (rs, rowNum) -> new StateRow(rs.getLong("id"), rs.getString("state"), rs.getLong("version")),
+                    "CREATED", lastId, chunkSize);
+
+            for (var row : rows) {
+                var nextState = stateMachineService.nextStateForSuccess(row.state());
+                jdbcTemplate.update("UPDATE orders SET state = ?, version = version + 1 WHERE id = ? AND state = ? AND version = ?",
+                        nextState, row.id(), row.state(), row.version());
+            }
+
+            if (rows.size() < chunkSize) {
+                break;
+            }
+
+            lastId = (Long) rows.get(rows.size() - 1).id();
+        }
+
+        return System.nanoTime() - start;
+    }
+
+    private static void resetTable(JdbcTemplate jdbcTemplate, int rows) {
+        jdbcTemplate.execute("TRUNCATE TABLE orders");
+
+        List<Object[]> batchArgs = new ArrayList<>(rows);
+        for (long id = 1; id <= rows; id++) {
+            batchArgs.add(new Object[]{id, "CREATED", 0L});
+        }
+
+        jdbcTemplate.batchUpdate("INSERT INTO orders (id, state, version) VALUES (?, ?, ?)", batchArgs);
+    }
+
+    private static SimpleStateMachineService createStateMachineService() throws Exception {
+        StateMachineConfig config;
+
+        try (InputStream stream = new ClassPathResource("state-machine/order.json").getInputStream()) {
+            config = JsonMapper.builder().build().readValue(stream, StateMachineConfig.class);
+        }
+
+        var transitionEval = new EvaluateStateTransitionForNextStateComponent(new EvaluateConditionalTransitionComponent());
+        return new SimpleStateMachineService(config, event -> { }, transitionEval);
+    }
+}
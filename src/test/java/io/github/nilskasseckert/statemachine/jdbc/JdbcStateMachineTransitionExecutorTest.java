@@ -0,0 +1,182 @@
+package io.github.nilskasseckert.statemachine.jdbc;
+
+import io.github.nilskasseckert.statemachine.SimpleStateMachineService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class JdbcStateMachineTransitionExecutorTest {
+
+    @Autowired
+    SimpleStateMachineService stateMachineService;
+
+    EmbeddedDatabase database;
+    JdbcTemplate jdbcTemplate;
+    JdbcStateMachineTransitionExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE orders (id BIGINT PRIMARY KEY, state VARCHAR(64) NOT NULL, version BIGINT NOT NULL)");
+
+        executor = new JdbcStateMachineTransitionExecutor(stateMachineService, jdbcTemplate, StateMachineTable.of("orders"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void shouldApplySuccessTransitionsInBatch() {
+        insert(1, "CREATED", 0);
+        insert(2, "CREATED", 3);
+
+        var result = executor.applySuccess(List.of(
+                new StateRow(1L, "CREATED", 0),
+                new StateRow(2L, "CREATED", 3)));
+
+        assertFalse(result.hasConflicts());
+        assertEquals(2, result.applied().size());
+        assertEquals("PROCESSING", stateOf(1));
+        assertEquals(1L, versionOf(1));
+        assertEquals(4L, versionOf(2));
+    }
+
+    @Test
+    void shouldApplyConditionalTransitionsWithVariables() {
+        insert(1, "PROCESSING", 0);
+        insert(2, "PROCESSING", 0);
+
+        var result = executor.applySuccess(List.of(
+                        new StateRow(1L, "PROCESSING", 0),
+                        new StateRow(2L, "PROCESSING", 0)),
+                row -> Map.of("order", new TestOrder(((Long) row.id()) == 1L ? 1500 : 500)));
+
+        assertFalse(result.hasConflicts());
+        assertEquals("REVIEW", stateOf(1));
+        assertEquals("APPROVED", stateOf(2));
+    }
+
+    @Test
+    void shouldReportStaleRowsAsConflicts() {
+        insert(1, "CREATED", 1);
+        insert(2, "PROCESSING", 0);
+
+        var result = executor.applySuccess(List.of(
+                new StateRow(1L, "CREATED", 0),
+                new StateRow(2L, "CREATED", 0)));
+
+        assertTrue(result.applied().isEmpty());
+        assertEquals(2, result.conflicts().size());
+        assertTrue(result.conflicts().stream()
+                .allMatch(conflict -> conflict.reason() == TransitionConflict.Reason.STALE_ROW));
+        assertEquals("CREATED", stateOf(1));
+        assertEquals(1L, versionOf(1));
+        assertEquals("PROCESSING", stateOf(2));
+    }
+
+    @Test
+    void shouldReportRowsWithoutTransitionAsConflicts() {
+        insert(1, "COMPLETED", 0);
+        insert(2, "SHIPPED", 0);
+
+        var result = executor.applySuccess(List.of(
+                new StateRow(1L, "COMPLETED", 0),
+                new StateRow(2L, "SHIPPED", 0)));
+
+        assertEquals(1, result.applied().size());
+        assertEquals(1, result.conflicts().size());
+        assertEquals(TransitionConflict.Reason.NO_TRANSITION, result.conflicts().get(0).reason());
+        assertEquals("COMPLETED", stateOf(1));
+        assertEquals("COMPLETED", stateOf(2));
+    }
+
+    @Test
+    void shouldReportRowsWithFailingConditionsAsConflicts() {
+        for (int id = 1; id <= 4; id++) {
+            insert(id, "PROCESSING", 0);
+        }
+
+        // row 2 has no order variable, so its condition throws
+        var result = executor.advanceAllForSuccess("PROCESSING", 2,
+                row -> ((Long) row.id()) == 2L ? Map.of() : Map.of("order", new TestOrder(500)));
+
+        assertEquals(3, result.applied().size());
+        assertEquals(1, result.conflicts().size());
+        assertEquals(2L, result.conflicts().get(0).id());
+        assertEquals(TransitionConflict.Reason.EVALUATION_FAILED, result.conflicts().get(0).reason());
+        assertNotNull(result.conflicts().get(0).cause());
+        assertEquals("PROCESSING", stateOf(2));
+        assertEquals("APPROVED", stateOf(4));
+    }
+
+    @Test
+    void shouldAdvanceAllRowsInStateInChunks() {
+        for (int id = 1; id <= 10; id++) {
+            insert(id, "CREATED", 0);
+        }
+        insert(11, "REVIEW", 0);
+
+        var result = executor.advanceAllForSuccess("CREATED", 3);
+
+        assertFalse(result.hasConflicts());
+        assertEquals(10, result.applied().size());
+        assertEquals(10, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM orders WHERE state = 'PROCESSING' AND version = 1", Integer.class));
+        assertEquals("REVIEW", stateOf(11));
+    }
+
+    @Test
+    void shouldAdvanceAllRowsForError() {
+        insert(1, "PROCESSING", 0);
+        insert(2, "PROCESSING", 0);
+
+        var result = executor.advanceAllForError("PROCESSING", 1);
+
+        assertEquals(2, result.applied().size());
+        assertEquals("ERROR_PROCESSING", stateOf(1));
+        assertEquals("ERROR_PROCESSING", stateOf(2));
+    }
+
+    @Test
+    void shouldRejectInvalidIdentifiers() {
+        assertThrows(IllegalArgumentException.class, () ->
+                StateMachineTable.of("orders; DROP TABLE orders"));
+    }
+
+    // helper
+    private void insert(long id, String state, long version) {
+        jdbcTemplate.update("INSERT INTO orders (id, state, version) VALUES (?, ?, ?)", id, state, version);
+    }
+
+    private String stateOf(long id) {
+        return jdbcTemplate.queryForObject("SELECT state FROM orders WHERE id = ?", String.class, id);
+    }
+
+    private long versionOf(long id) {
+        return jdbcTemplate.queryForObject("SELECT version FROM orders WHERE id = ?", Long.class, id);
+    }
+
+    public record TestOrder(int totalAmount) {
+        public int getTotalAmount() {
+            return totalAmount;
+        }
+    }
+}
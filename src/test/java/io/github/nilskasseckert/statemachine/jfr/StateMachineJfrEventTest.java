@@ -0,0 +1,194 @@
+package io.github.nilskasseckert.statemachine.jfr;
+
+import io.github.nilskasseckert.statemachine.SimpleStateMachineService;
+import io.github.nilskasseckert.statemachine.control.EvaluateConditionalTransitionComponent;
+import io.github.nilskasseckert.statemachine.control.EvaluateStateTransitionForNextStateComponent;
+import io.github.nilskasseckert.statemachine.entity.ConditionalTransitionEntity;
+import io.github.nilskasseckert.statemachine.entity.StateEntity;
+import io.github.nilskasseckert.statemachine.entity.StateMachineConfig;
+import io.github.nilskasseckert.statemachine.entity.TransitionType;
+import io.github.nilskasseckert.statemachine.exception.StateMachineIllegalActionException;
+import io.github.nilskasseckert.statemachine.exception.StateMachineInvalidStateException;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StateMachineJfrEventTest {
+
+    private static final String MACHINE = "jfr-order";
+
+    private SimpleStateMachineService stateMachine;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        StateMachineConfig config;
+
+        try (InputStream in = new ClassPathResource("state-machine/order.json").getInputStream()) {
+            config = JsonMapper.builder().build().readValue(in, StateMachineConfig.class);
+        }
+
+        stateMachine = new SimpleStateMachineService(MACHINE, config, event -> { },
+                new EvaluateStateTransitionForNextStateComponent(new EvaluateConditionalTransitionComponent()));
+    }
+
+    @Test
+    void shouldLoadBundledSettings() {
+        var settings = StateMachineJfrConfiguration.load().getSettings();
+
+        assertEquals("true", settings.get(TransitionJfrEvent.NAME + "#enabled"));
+        assertEquals("true", settings.get(ActionRejectedJfrEvent.NAME + "#enabled"));
+        assertEquals("1 ms", settings.get(ConditionEvaluationJfrEvent.NAME + "#threshold"));
+    }
+
+    @Test
+    void shouldRecordTransitions() throws Exception {
+        var events = record(() -> {
+            stateMachine.nextStateForSuccess("CREATED");
+            stateMachine.fire("REVIEW", "APPROVE");
+            assertThrows(StateMachineInvalidStateException.class, () -> stateMachine.nextStateForError("COMPLETED"));
+        }, TransitionJfrEvent.NAME);
+
+        assertEquals(3, events.size());
+
+        var success = events.get(0);
+        assertEquals(MACHINE, success.getString("machine"));
+        assertEquals("CREATED", success.getString("fromState"));
+        assertEquals("PROCESSING", success.getString("toState"));
+        assertEquals("SUCCESS", success.getString("trigger"));
+        assertEquals("TRANSITIONED", success.getString("outcome"));
+        assertNull(success.getClass("failure"));
+        assertFalse(success.getDuration().isNegative());
+
+        var fired = events.get(1);
+        assertEquals("APPROVE", fired.getString("trigger"));
+        assertEquals("APPROVED", fired.getString("toState"));
+
+        var failed = events.get(2);
+        assertEquals("ERROR", failed.getString("trigger"));
+        assertEquals("FAILED", failed.getString("outcome"));
+        assertNull(failed.getString("toState"));
+        assertEquals(StateMachineInvalidStateException.class.getName(), failed.getClass("failure").getName());
+    }
+
+    @Test
+    void shouldRecordRejectedActions() throws Exception {
+        var events = record(() -> {
+            assertThrows(StateMachineIllegalActionException.class, () ->
+                    stateMachine.requireActionAllowed("CREATED", "APPROVE"));
+            assertThrows(StateMachineIllegalActionException.class, () ->
+                    stateMachine.fire("CREATED", "SHIP"));
+        }, ActionRejectedJfrEvent.NAME);
+
+        assertEquals(2, events.size());
+        assertEquals(MACHINE, events.get(0).getString("machine"));
+        assertEquals("CREATED", events.get(0).getString("fromState"));
+        assertEquals("APPROVE", events.get(0).getString("action"));
+        assertEquals("SHIP", events.get(1).getString("action"));
+    }
+
+    @Test
+    void shouldRecordConditionEvaluations() throws Exception {
+        var events = record(() -> {
+            stateMachine.nextStateForSuccess("PROCESSING", Map.of("order", new TestOrder(1500)));
+            stateMachine.nextStateForSuccess("PROCESSING", Map.of("order", new TestOrder(500)));
+        }, ConditionEvaluationJfrEvent.NAME);
+
+        assertEquals(2, events.size());
+
+        var matched = events.get(0);
+        assertEquals(MACHINE, matched.getString("machine"));
+        assertEquals("PROCESSING", matched.getString("fromState"));
+        assertEquals("REVIEW", matched.getString("toState"));
+        assertEquals(0, matched.getInt("conditionIndex"));
+        assertEquals("#order.totalAmount > 1000", matched.getString("condition"));
+        assertEquals("MATCHED", matched.getString("outcome"));
+
+        assertEquals("NOT_MATCHED", events.get(1).getString("outcome"));
+    }
+
+    @Test
+    void shouldRecordErrorsAsFailed() throws Exception {
+        // nested deep enough to overflow the stack of the parser, which SpEL does not wrap
+        var pathological = "(".repeat(4000) + "true" + ")".repeat(4000);
+        var check = new ConditionalTransitionEntity(TransitionType.SUCCESS, List.of(
+                new ConditionalTransitionEntity.ConditionWhen(pathological, "RESERVED")));
+        check.setFrom("CHECK_STOCK");
+
+        var config = new StateMachineConfig();
+        config.setStates(List.of(new StateEntity("CHECK_STOCK", List.of())));
+        config.setTransitions(List.of(check));
+        stateMachine = new SimpleStateMachineService(MACHINE, config, event -> { },
+                new EvaluateStateTransitionForNextStateComponent(new EvaluateConditionalTransitionComponent()));
+
+        var file = directory.resolve("state-machine.jfr");
+
+        try (var recording = new Recording(StateMachineJfrConfiguration.load())) {
+            recording.enable(ConditionEvaluationJfrEvent.NAME).withoutThreshold();
+            recording.start();
+
+            var thread = new Thread(null, () -> assertThrows(StackOverflowError.class, () ->
+                    stateMachine.nextStateForSuccess("CHECK_STOCK")), "small-stack", 256 * 1024);
+            thread.start();
+            thread.join();
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        var events = RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().startsWith("io.github.nilskasseckert"))
+                .toList();
+
+        var transition = events.stream()
+                .filter(event -> event.getEventType().getName().equals(TransitionJfrEvent.NAME))
+                .findFirst()
+                .orElseThrow();
+        assertEquals("FAILED", transition.getString("outcome"));
+        assertEquals(StackOverflowError.class.getName(), transition.getClass("failure").getName());
+
+        var condition = events.stream()
+                .filter(event -> event.getEventType().getName().equals(ConditionEvaluationJfrEvent.NAME))
+                .findFirst()
+                .orElseThrow();
+        assertEquals("FAILED", condition.getString("outcome"));
+    }
+
+    // helper
+    private List<RecordedEvent> record(Runnable action, String eventName) throws Exception {
+        var file = directory.resolve("state-machine.jfr");
+
+        try (var recording = new Recording(StateMachineJfrConfiguration.load())) {
+            recording.enable(ConditionEvaluationJfrEvent.NAME).withoutThreshold();
+            recording.start();
+
+            action.run();
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        return RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().equals(eventName))
+                .filter(event -> MACHINE.equals(event.getString("machine")))
+                .sorted((a, b) -> a.getStartTime().compareTo(b.getStartTime()))
+                .toList();
+    }
+
+    public record TestOrder(int totalAmount) {
+    }
+}
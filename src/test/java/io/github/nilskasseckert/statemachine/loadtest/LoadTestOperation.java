@@ -0,0 +1,28 @@
+package io.github.nilskasseckert.statemachine.loadtest;
+
+enum LoadTestOperation {
+    /**
+     * {@code requireActionAllowed} with an action the state allows.
+     */
+    ACTION_ALLOWED,
+
+    /**
+     * {@code requireActionAllowed} with an action the state rejects, throws {@code StateMachineIllegalActionException}.
+     */
+    ACTION_REJECTED,
+
+    /**
+     * {@code nextStateForSuccess} on a state with a plain SUCCESS transition.
+     */
+    NEXT_SUCCESS,
+
+    /**
+     * {@code nextStateForSuccess} on a state with a CONDITIONAL transition, evaluating SpEL conditions.
+     */
+    NEXT_CONDITIONAL,
+
+    /**
+     * {@code nextStateForError} on any state.
+     */
+    NEXT_ERROR
+}
@@ -0,0 +1,151 @@
+package io.github.nilskasseckert.statemachine.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Command line options of the {@link StateMachineLoadTest}, given as {@code --name=value} arguments.
+ */
+record LoadTestOptions(
+        String name,
+        int rate,
+        Duration warmup,
+        Duration duration,
+        boolean virtualThreads,
+        int platformThreads,
+        int machines,
+        int states,
+        int actions,
+        Map<LoadTestOperation, Integer> mix,
+        Path reportDirectory
+) {
+
+    static final String USAGE = """
+            Options:
+              --name=<label>              report name (default: load-test)
+              --rate=<ops/s>              target request rate (default: 20000)
+              --warmup=<duration>         warmup duration, e.g. 10s (default: 10s)
+              --duration=<duration>       measured duration, e.g. 60s or 2m (default: 30s)
+              --threads=virtual|platform  thread model (default: virtual)
+              --platform-threads=<n>      pool size for platform threads (default: 2 * cores)
+              --machines=<n>              number of synthetic state machines (default: 8)
+              --states=<n>                states per machine (default: 500)
+              --actions=<n>               distinct actions per machine, at least 4 (default: 16)
+              --mix=<op:weight,...>       operation mix, ops: %s
+              --report-dir=<path>         directory for reports (default: target/load-test)
+            """.formatted(java.util.Arrays.toString(LoadTestOperation.values()));
+
+    LoadTestOptions {
+        if (rate <= 0) {
+            throw new IllegalArgumentException("--rate must be positive");
+        }
+
+        if (states < 4) {
+            throw new IllegalArgumentException("--states must be at least 4");
+        }
+
+        if (actions < 4) {
+            throw new IllegalArgumentException("--actions must be at least 4");
+        }
+
+        if (mix.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+            throw new IllegalArgumentException("--mix must contain at least one positive weight");
+        }
+    }
+
+    static LoadTestOptions parse(String... args) {
+        String name = "load-test";
+        int rate = 20_000;
+        Duration warmup = Duration.ofSeconds(10);
+        Duration duration = Duration.ofSeconds(30);
+        boolean virtualThreads = true;
+        int platformThreads = 2 * Runtime.getRuntime().availableProcessors();
+        int machines = 8;
+        int states = 500;
+        int actions = 16;
+        Map<LoadTestOperation, Integer> mix = defaultMix();
+        Path reportDirectory = Path.of("target", "load-test");
+
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Invalid argument '" + arg + "'\n" + USAGE);
+            }
+
+            String key = arg.substring(2, separator);
+            String value = arg.substring(separator + 1);
+
+            switch (key) {
+                case "name" -> name = value;
+                case "rate" -> rate = Integer.parseInt(value);
+                case "warmup" -> warmup = parseDuration(value);
+                case "duration" -> duration = parseDuration(value);
+                case "threads" -> virtualThreads = parseThreadModel(value);
+                case "platform-threads" -> platformThreads = Integer.parseInt(value);
+                case "machines" -> machines = Integer.parseInt(value);
+                case "states" -> states = Integer.parseInt(value);
+                case "actions" -> actions = Integer.parseInt(value);
+                case "mix" -> mix = parseMix(value);
+                case "report-dir" -> reportDirectory = Path.of(value);
+                default -> throw new IllegalArgumentException("Unknown option '" + key + "'\n" + USAGE);
+            }
+        }
+
+        return new LoadTestOptions(name, rate, warmup, duration, virtualThreads, platformThreads,
+                machines, states, actions, mix, reportDirectory);
+    }
+
+    // helper
+    private static Map<LoadTestOperation, Integer> defaultMix() {
+        Map<LoadTestOperation, Integer> mix = new EnumMap<>(LoadTestOperation.class);
+        mix.put(LoadTestOperation.ACTION_ALLOWED, 30);
+        mix.put(LoadTestOperation.ACTION_REJECTED, 10);
+        mix.put(LoadTestOperation.NEXT_SUCCESS, 25);
+        mix.put(LoadTestOperation.NEXT_CONDITIONAL, 25);
+        mix.put(LoadTestOperation.NEXT_ERROR, 10);
+        return mix;
+    }
+
+    private static Map<LoadTestOperation, Integer> parseMix(String value) {
+        Map<LoadTestOperation, Integer> mix = new EnumMap<>(LoadTestOperation.class);
+
+        for (String entry : value.split(",")) {
+            String[] parts = entry.split(":");
+
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid mix entry '" + entry + "', expected <op>:<weight>");
+            }
+
+            mix.put(LoadTestOperation.valueOf(parts[0].trim().toUpperCase()), Integer.parseInt(parts[1].trim()));
+        }
+
+        return mix;
+    }
+
+    private static boolean parseThreadModel(String value) {
+        return switch (value) {
+            case "virtual" -> true;
+            case "platform" -> false;
+            default -> throw new IllegalArgumentException("--threads must be 'virtual' or 'platform'");
+        };
+    }
+
+    private static Duration parseDuration(String value) {
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+
+        if (value.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+
+        if (value.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+
+        return Duration.parse(value);
+    }
+}
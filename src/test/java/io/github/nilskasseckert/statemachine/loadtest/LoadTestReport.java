@@ -0,0 +1,138 @@
+package io.github.nilskasseckert.statemachine.loadtest;
+
+import org.HdrHistogram.Histogram;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Result of a {@link StateMachineLoadTest} run.
+ * <p>
+ * Latencies are measured from the intended start time of each request, so queueing behind a stalled request is
+ * part of the recorded latency (corrected for coordinated omission).
+ */
+record LoadTestReport(
+        LoadTestOptions options,
+        double durationSeconds,
+        Histogram total,
+        Map<LoadTestOperation, Histogram> perOperation,
+        long unexpectedOutcomes,
+        GcStats gc
+) {
+
+    private static final double NANOS_PER_MICRO = 1_000.0;
+    private static final double[] PERCENTILES = {50.0, 90.0, 99.0, 99.9, 99.99};
+
+    long totalCount() {
+        return total.getTotalCount();
+    }
+
+    double achievedRate() {
+        return totalCount() / durationSeconds;
+    }
+
+    void print(PrintStream out) {
+        out.printf("%n=== %s ===%n", options.name());
+        out.printf("target rate: %,d ops/s, achieved: %,.0f ops/s, threads: %s, duration: %.1fs%n",
+                options.rate(), achievedRate(), options.virtualThreads() ? "virtual" : "platform (" + options.platformThreads() + ")",
+                durationSeconds);
+        out.printf("machines: %d x %d states, unexpected outcomes: %d%n",
+                options.machines(), options.states(), unexpectedOutcomes);
+        out.printf("%-18s %10s %10s %10s %10s %10s %10s %10s%n",
+                "latency (us)", "count", "p50", "p90", "p99", "p99.9", "p99.99", "max");
+
+        printRow(out, "total", total);
+        perOperation.forEach((operation, histogram) -> printRow(out, operation.name(), histogram));
+
+        out.printf("gc: %d collections, %d ms collecting, allocated: %,.1f MB (%,.0f bytes/op)%n",
+                gc.collections(), gc.collectionMillis(), gc.allocatedBytes() / (1024.0 * 1024.0),
+                totalCount() == 0 ? 0.0 : (double) gc.allocatedBytes() / totalCount());
+    }
+
+    /**
+     * Writes a JSON summary for comparing runs and one HdrHistogram percentile distribution ({@code .hgrm}) per
+     * operation, which can be plotted with the HdrHistogram plotter.
+     */
+    void write() throws IOException {
+        Files.createDirectories(options.reportDirectory());
+
+        Files.writeString(options.reportDirectory().resolve(options.name() + ".json"),
+                JsonMapper.builder().build().writerWithDefaultPrettyPrinter().writeValueAsString(summary()));
+
+        writeDistribution("total", total);
+        for (var entry : perOperation.entrySet()) {
+            writeDistribution(entry.getKey().name().toLowerCase(), entry.getValue());
+        }
+    }
+
+    // helper
+    private Map<String, Object> summary() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("name", options.name());
+        summary.put("targetRate", options.rate());
+        summary.put("achievedRate", achievedRate());
+        summary.put("threads", options.virtualThreads() ? "virtual" : "platform");
+        summary.put("platformThreads", options.platformThreads());
+        summary.put("machines", options.machines());
+        summary.put("states", options.states());
+        summary.put("actions", options.actions());
+        summary.put("durationSeconds", durationSeconds);
+        summary.put("unexpectedOutcomes", unexpectedOutcomes);
+        summary.put("latencyMicros", latencySummary(total));
+
+        Map<String, Object> operations = new LinkedHashMap<>();
+        perOperation.forEach((operation, histogram) -> operations.put(operation.name(), latencySummary(histogram)));
+        summary.put("operations", operations);
+
+        Map<String, Object> gcSummary = new LinkedHashMap<>();
+        gcSummary.put("collections", gc.collections());
+        gcSummary.put("collectionMillis", gc.collectionMillis());
+        gcSummary.put("allocatedBytes", gc.allocatedBytes());
+        gcSummary.put("allocatedBytesPerOperation", totalCount() == 0 ? 0.0 : (double) gc.allocatedBytes() / totalCount());
+        summary.put("gc", gcSummary);
+
+        return summary;
+    }
+
+    private static Map<String, Object> latencySummary(Histogram histogram) {
+        Map<String, Object> latency = new LinkedHashMap<>();
+        latency.put("count", histogram.getTotalCount());
+        latency.put("mean", histogram.getMean() / NANOS_PER_MICRO);
+
+        for (double percentile : PERCENTILES) {
+            latency.put("p" + percentile, histogram.getValueAtPercentile(percentile) / NANOS_PER_MICRO);
+        }
+
+        latency.put("max", histogram.getMaxValue() / NANOS_PER_MICRO);
+        return latency;
+    }
+
+    private static void printRow(PrintStream out, String label, Histogram histogram) {
+        out.printf("%-18s %10d", label, histogram.getTotalCount());
+
+        for (double percentile : PERCENTILES) {
+            out.printf(" %10.1f", histogram.getValueAtPercentile(percentile) / NANOS_PER_MICRO);
+        }
+
+        out.printf(" %10.1f%n", histogram.getMaxValue() / NANOS_PER_MICRO);
+    }
+
+    private void writeDistribution(String label, Histogram histogram) throws IOException {
+        var file = options.reportDirectory().resolve(options.name() + "-" + label + ".hgrm");
+
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+            histogram.outputPercentileDistribution(out, NANOS_PER_MICRO);
+        }
+    }
+
+    record GcStats(
+            long collections,
+            long collectionMillis,
+            long allocatedBytes
+    ) {
+    }
+}
@@ -0,0 +1,124 @@
+package io.github.nilskasseckert.statemachine.loadtest;
+
+import io.github.nilskasseckert.statemachine.SimpleStateMachineService;
+import io.github.nilskasseckert.statemachine.control.EvaluateConditionalTransitionComponent;
+import io.github.nilskasseckert.statemachine.control.EvaluateStateTransitionForNextStateComponent;
+import io.github.nilskasseckert.statemachine.exception.StateMachineIllegalActionException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * A pre-generated, cyclic sequence of {@link WorkItem}s against a set of synthetic state machines.
+ * <p>
+ * Work items are generated up front so the dispatcher does not pay for random generation, while each execution
+ * still allocates its own variables like a request would.
+ */
+final class LoadTestWorkload {
+
+    private static final int POOL_SIZE = 1 << 16;
+
+    private final WorkItem[] pool;
+
+    LoadTestWorkload(LoadTestOptions options, long seed) {
+        List<SimpleStateMachineService> machines = new ArrayList<>();
+        var transitionEval = new EvaluateStateTransitionForNextStateComponent(new EvaluateConditionalTransitionComponent());
+
+        for (int i = 0; i < options.machines(); i++) {
+            var config = SyntheticStateMachineDefinitions.create(options.states(), options.actions());
+            machines.add(new SimpleStateMachineService(config, event -> { }, transitionEval));
+        }
+
+        var random = new SplittableRandom(seed);
+        var operations = weightedOperations(options.mix());
+
+        pool = new WorkItem[POOL_SIZE];
+        for (int i = 0; i < POOL_SIZE; i++) {
+            pool[i] = createWorkItem(random, operations, machines, options);
+        }
+    }
+
+    WorkItem get(long sequence) {
+        return pool[(int) (sequence & (POOL_SIZE - 1))];
+    }
+
+    /**
+     * Executes the work item and returns whether it behaved as expected.
+     */
+    static boolean execute(WorkItem item) {
+        return switch (item.operation()) {
+            case ACTION_ALLOWED -> {
+                item.machine().requireActionAllowed(item.state(), item.action());
+                yield true;
+            }
+            case ACTION_REJECTED -> {
+                try {
+                    item.machine().requireActionAllowed(item.state(), item.action());
+                    yield false;
+                } catch (StateMachineIllegalActionException e) {
+                    yield true;
+                }
+            }
+            case NEXT_SUCCESS, NEXT_CONDITIONAL -> item.machine().nextStateForSuccess(item.state(),
+                    Map.of("order", new SyntheticOrder(item.amount(), item.priority()))) != null;
+            case NEXT_ERROR -> item.machine().nextStateForError(item.state(),
+                    Map.of("order", new SyntheticOrder(item.amount(), item.priority()))) != null;
+        };
+    }
+
+    // helper
+    private static LoadTestOperation[] weightedOperations(Map<LoadTestOperation, Integer> mix) {
+        List<LoadTestOperation> operations = new ArrayList<>();
+        mix.forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                operations.add(operation);
+            }
+        });
+        return operations.toArray(LoadTestOperation[]::new);
+    }
+
+    private static WorkItem createWorkItem(SplittableRandom random, LoadTestOperation[] operations,
+                                           List<SimpleStateMachineService> machines, LoadTestOptions options) {
+        var operation = operations[random.nextInt(operations.length)];
+        var machine = machines.get(random.nextInt(machines.size()));
+        int stateIndex = random.nextInt(options.states());
+
+        if (operation == LoadTestOperation.NEXT_CONDITIONAL) {
+            stateIndex = stateIndex - stateIndex % 4 + 1;
+            if (stateIndex >= options.states()) {
+                stateIndex = 1;
+            }
+        } else if (operation == LoadTestOperation.NEXT_SUCCESS && SyntheticStateMachineDefinitions.isConditional(stateIndex)) {
+            stateIndex = (stateIndex + 1) % options.states();
+        }
+
+        var action = operation == LoadTestOperation.ACTION_REJECTED
+                ? SyntheticStateMachineDefinitions.rejectedAction(stateIndex, options.actions())
+                : SyntheticStateMachineDefinitions.allowedAction(stateIndex, options.actions());
+
+        return new WorkItem(operation, machine, SyntheticStateMachineDefinitions.state(stateIndex), action,
+                random.nextInt(2_000), random.nextInt(10) == 0 ? "HIGH" : "NORMAL");
+    }
+
+    record WorkItem(
+            LoadTestOperation operation,
+            SimpleStateMachineService machine,
+            String state,
+            String action,
+            int amount,
+            String priority
+    ) {
+    }
+
+    public record SyntheticOrder(int amount, String priority) {
+        public int getAmount() {
+            return amount;
+        }
+
+        public String getPriority() {
+            return priority;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package io.github.nilskasseckert.statemachine.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load generator for the state machine services.
+ * <p>
+ * Requests are dispatched at a fixed target rate onto platform or virtual threads. Each request has an intended start
+ * time derived from the schedule, and its latency is measured from that time instead of from the moment a thread
+ * picked it up. When the system stalls, the requests queued behind the stall are therefore recorded with their full
+ * waiting time instead of being silently omitted.
+ * <p>
+ * Run with {@code mvn -Pbenchmark test -DskipTests
+ * -Dbenchmark.main-class=io.github.nilskasseckert.statemachine.loadtest.StateMachineLoadTest
+ * -Dexec.args="--rate=50000 --duration=2m --threads=virtual"}. JVM options such as heap size or garbage collector
+ * are taken from {@code MAVEN_OPTS}.
+ */
+public final class StateMachineLoadTest {
+
+    private static final long SPIN_THRESHOLD_NANOS = 100_000;
+
+    private StateMachineLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        var options = LoadTestOptions.parse(args);
+        var report = run(options);
+
+        report.print(System.out);
+        report.write();
+
+        System.out.printf("reports written to %s%n", options.reportDirectory().toAbsolutePath());
+    }
+
+    static LoadTestReport run(LoadTestOptions options) {
+        var workload = new LoadTestWorkload(options, 42L);
+
+        Map<LoadTestOperation, Recorder> recorders = new EnumMap<>(LoadTestOperation.class);
+        options.mix().forEach((operation, weight) -> {
+            if (weight > 0) {
+                recorders.put(operation, new Recorder(3));
+            }
+        });
+        var totalRecorder = new Recorder(3);
+        var unexpectedOutcomes = new LongAdder();
+
+        drive(options, workload, options.warmup(), null, null, null);
+
+        var gcBefore = gcStats();
+        long start = System.nanoTime();
+
+        drive(options, workload, options.duration(), recorders, totalRecorder, unexpectedOutcomes);
+
+        double durationSeconds = (System.nanoTime() - start) / 1e9;
+        var gcAfter = gcStats();
+
+        Map<LoadTestOperation, Histogram> perOperation = new EnumMap<>(LoadTestOperation.class);
+        recorders.forEach((operation, recorder) -> perOperation.put(operation, recorder.getIntervalHistogram()));
+
+        return new LoadTestReport(
+                options,
+                durationSeconds,
+                totalRecorder.getIntervalHistogram(),
+                perOperation,
+                unexpectedOutcomes.sum(),
+                new LoadTestReport.GcStats(
+                        gcAfter.collections() - gcBefore.collections(),
+                        gcAfter.collectionMillis() - gcBefore.collectionMillis(),
+                        gcAfter.allocatedBytes() - gcBefore.allocatedBytes()));
+    }
+
+    // helper
+
+    /**
+     * Dispatches requests for the given duration and waits until all of them have completed. Results are only
+     * recorded when recorders are given, which is used to discard the warmup phase.
+     */
+    private static void drive(LoadTestOptions options, LoadTestWorkload workload, Duration duration,
+                              Map<LoadTestOperation, Recorder> recorders, Recorder totalRecorder,
+                              LongAdder unexpectedOutcomes) {
+        double intervalNanos = 1e9 / options.rate();
+        long requests = (long) (duration.toNanos() / intervalNanos);
+
+        try (ExecutorService executor = createExecutor(options)) {
+            long start = System.nanoTime();
+
+            for (long sequence = 0; sequence < requests; sequence++) {
+                long intendedStart = start + (long) (sequence * intervalNanos);
+                var item = workload.get(sequence);
+
+                awaitIntendedStart(intendedStart);
+
+                executor.execute(() -> {
+                    boolean expected;
+
+                    try {
+                        expected = LoadTestWorkload.execute(item);
+                    } catch (RuntimeException e) {
+                        expected = false;
+                    }
+
+                    if (recorders == null) {
+                        return;
+                    }
+
+                    long latency = System.nanoTime() - intendedStart;
+                    recorders.get(item.operation()).recordValue(latency);
+                    totalRecorder.recordValue(latency);
+
+                    if (!expected) {
+                        unexpectedOutcomes.increment();
+                    }
+                });
+            }
+        }
+    }
+
+    private static ExecutorService createExecutor(LoadTestOptions options) {
+        return options.virtualThreads()
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(options.platformThreads());
+    }
+
+    private static void awaitIntendedStart(long intendedStart) {
+        long remaining;
+
+        while ((remaining = intendedStart - System.nanoTime()) > 0) {
+            if (remaining > SPIN_THRESHOLD_NANOS) {
+                LockSupport.parkNanos(remaining - SPIN_THRESHOLD_NANOS / 2);
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    private static LoadTestReport.GcStats gcStats() {
+        long collections = 0;
+        long collectionMillis = 0;
+
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            collections += Math.max(0, gc.getCollectionCount());
+            collectionMillis += Math.max(0, gc.getCollectionTime());
+        }
+
+        long allocatedBytes = 0;
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                && threads.isThreadAllocatedMemorySupported()) {
+            allocatedBytes = threads.getTotalThreadAllocatedBytes();
+        }
+
+        return new LoadTestReport.GcStats(collections, collectionMillis, allocatedBytes);
+    }
+}
@@ -0,0 +1,54 @@
+package io.github.nilskasseckert.statemachine.loadtest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StateMachineLoadTestSmokeTest {
+
+    @TempDir
+    Path reportDirectory;
+
+    @Test
+    void shouldRunShortLoadTestAndWriteReports() throws Exception {
+        var options = LoadTestOptions.parse(
+                "--name=smoke",
+                "--rate=2000",
+                "--warmup=100ms",
+                "--duration=500ms",
+                "--machines=2",
+                "--states=40",
+                "--report-dir=" + reportDirectory);
+
+        var report = StateMachineLoadTest.run(options);
+        report.write();
+
+        assertEquals(1000, report.totalCount());
+        assertEquals(0, report.unexpectedOutcomes());
+        assertEquals(LoadTestOperation.values().length, report.perOperation().size());
+        assertTrue(Files.exists(reportDirectory.resolve("smoke.json")));
+        assertTrue(Files.exists(reportDirectory.resolve("smoke-total.hgrm")));
+    }
+
+    @Test
+    void shouldRunOnPlatformThreads() {
+        var options = LoadTestOptions.parse(
+                "--rate=1000",
+                "--warmup=0s",
+                "--duration=200ms",
+                "--threads=platform",
+                "--platform-threads=2",
+                "--states=8",
+                "--mix=action_rejected:1,next_conditional:1");
+
+        var report = StateMachineLoadTest.run(options);
+
+        assertEquals(200, report.totalCount());
+        assertEquals(0, report.unexpectedOutcomes());
+        assertEquals(2, report.perOperation().size());
+    }
+}
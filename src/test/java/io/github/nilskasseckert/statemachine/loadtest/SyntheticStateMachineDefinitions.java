@@ -0,0 +1,102 @@
+package io.github.nilskasseckert.statemachine.loadtest;
+
+import io.github.nilskasseckert.statemachine.entity.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates large state machine definitions for load tests.
+ * <p>
+ * States {@code S0..S(n-1)} form a ring of SUCCESS transitions, every state has an ERROR transition to
+ * {@code FAILED}, and every fourth state uses a CONDITIONAL success transition evaluating SpEL against an
+ * {@code #order} variable. Each state allows a rotating subset of {@code actionCount} actions.
+ */
+final class SyntheticStateMachineDefinitions {
+
+    static final String FAILED = "FAILED";
+
+    private SyntheticStateMachineDefinitions() {
+    }
+
+    static StateMachineConfig create(int stateCount, int actionCount) {
+        List<StateEntity> states = new ArrayList<>();
+        List<AbstractTransitionEntity> transitions = new ArrayList<>();
+
+        for (int i = 0; i < stateCount; i++) {
+            states.add(new StateEntity(state(i), allowedActions(i, actionCount)));
+
+            if (isConditional(i)) {
+                transitions.add(conditional(state(i),
+                        new ConditionalTransitionEntity.ConditionWhen("#order.amount > 1000", state(i + 2, stateCount)),
+                        new ConditionalTransitionEntity.ConditionWhen("#order.priority == 'HIGH'", state(i + 3, stateCount)),
+                        new ConditionalTransitionEntity.ConditionElse(state(i + 1, stateCount))));
+            } else {
+                transitions.add(success(state(i), state(i + 1, stateCount)));
+            }
+
+            transitions.add(error(state(i), FAILED));
+        }
+
+        states.add(new StateEntity(FAILED, List.of("RETRY")));
+        transitions.add(success(FAILED, state(0)));
+
+        StateMachineConfig config = new StateMachineConfig();
+        config.setStates(states);
+        config.setTransitions(transitions);
+        return config;
+    }
+
+    static boolean isConditional(int stateIndex) {
+        return stateIndex % 4 == 1;
+    }
+
+    static String state(int index) {
+        return "S" + index;
+    }
+
+    static String allowedAction(int stateIndex, int actionCount) {
+        return action(stateIndex % actionCount);
+    }
+
+    static String rejectedAction(int stateIndex, int actionCount) {
+        return action((stateIndex + actionCount / 2) % actionCount);
+    }
+
+    // helper
+    private static String state(int index, int stateCount) {
+        return state(index % stateCount);
+    }
+
+    private static String action(int index) {
+        return "ACTION_" + index;
+    }
+
+    private static List<String> allowedActions(int stateIndex, int actionCount) {
+        return List.of(
+                action(stateIndex % actionCount),
+                action((stateIndex + 1) % actionCount),
+                "CANCEL");
+    }
+
+    private static SuccessTransitionEntity success(String from, String to) {
+        SuccessTransitionEntity transition = new SuccessTransitionEntity(to);
+        transition.setFrom(from);
+        transition.setType(TransitionType.SUCCESS);
+        return transition;
+    }
+
+    private static ErrorTransitionEntity error(String from, String to) {
+        ErrorTransitionEntity transition = new ErrorTransitionEntity(to);
+        transition.setFrom(from);
+        transition.setType(TransitionType.ERROR);
+        return transition;
+    }
+
+    private static ConditionalTransitionEntity conditional(String from, ConditionalTransitionEntity.Condition... conditions) {
+        ConditionalTransitionEntity transition = new ConditionalTransitionEntity(TransitionType.SUCCESS, List.of(conditions));
+        transition.setFrom(from);
+        transition.setType(TransitionType.CONDITIONAL);
+        return transition;
+    }
+}